@@ -18,4 +18,20 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+# ==================== LOGGING ====================
+# Release builds drop verbose/debug logging entirely: the calls and the
+# argument building feeding them (VLog checks the level before formatting
+# for the levels that remain).
+-assumenosideeffects class com.example.projetofinal.VLog {
+    static void v(...);
+    static void d(...);
+}
+-assumenosideeffects class android.util.Log {
+    public static int v(...);
+    public static int d(...);
+}
+
+# ==================== POCKETSPHINX ====================
+# SWIG bindings: the native library looks classes, fields and callbacks up by name
+-keep class edu.cmu.pocketsphinx.** { *; }
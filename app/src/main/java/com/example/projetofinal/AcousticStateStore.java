@@ -0,0 +1,289 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // For preferences / audio service
+import android.content.SharedPreferences; // Persisted state
+import android.media.AudioDeviceInfo; // Input device types
+import android.media.AudioManager; // Current audio route
+import android.os.Build; // For API level checks
+
+// JAVA STANDARD IMPORTS
+import java.util.Arrays; // Noise floor percentile
+import java.util.HashMap; // In-memory state per key
+import java.util.Locale; // Number formatting
+import java.util.Map; // In-memory state per key
+import java.util.concurrent.ExecutorService; // Serialized background work
+import java.util.concurrent.Executors; // Serialized background work
+
+/**
+ * ACOUSTIC STATE STORE - Cepstral mean + noise floor per audio route, across sessions
+ *
+ * A fresh decoder starts CMN from a generic default, so the first utterance
+ * after every launch or rebuild is decoded with badly normalized features
+ * and often fails the confidence gate. With live CMN the decoder accepts an
+ * initial mean (-cmninit); this class keeps that mean warm:
+ * - Each finished utterance's audio is run through MfccFrontEnd and the mean
+ *   of its speech frames is folded into a running mean (bounded history, so
+ *   it follows slow changes in room and voice).
+ * - The noise floor (low percentile of frame energy) is tracked alongside.
+ * - State is keyed by locale + audio route, since a headset and the built-in
+ *   mic have very different channels.
+ * - Snapshots go to SharedPreferences every few updates and when the app
+ *   goes idle (onPause / onDestroy).
+ *
+ * update() and snapshot() return immediately; work runs on one background
+ * thread. The getters may be called from any thread. One instance per
+ * process (getInstance).
+ */
+final class AcousticStateStore {
+
+    private static final String TAG = "AcousticState_SLATE";
+
+    private static final String PREFS_NAME = "acoustic_state";
+    private static final String KEY_MEAN = "mean";
+    private static final String KEY_NOISE = "noise_db";
+    private static final String KEY_FRAMES = "frames";
+
+    // Audio routes (the decoder sees a different channel on each)
+    static final String ROUTE_BUILTIN = "builtin";
+    static final String ROUTE_HEADSET = "headset";
+    static final String ROUTE_BLUETOOTH = "bluetooth";
+
+    // ==================== ESTIMATION SETTINGS ====================
+
+    // An utterance needs this many speech frames (10 ms each) to be used
+    private static final int MIN_SPEECH_FRAMES = 30;
+
+    // History cap: the stored mean weighs at most this many frames (~30 s of speech)
+    private static final long MAX_EFFECTIVE_FRAMES = 3000;
+
+    // Frames this far above the noise floor count as speech
+    private static final float SPEECH_MARGIN_DB = 10f;
+
+    // Noise floor = this percentile of frame energies within an utterance
+    private static final float NOISE_PERCENTILE = 0.1f;
+
+    // Weight of a new utterance's noise floor in the running estimate
+    private static final float NOISE_SMOOTHING = 0.2f;
+
+    // Write to disk after this many unsaved updates
+    private static final int SNAPSHOT_EVERY_UPDATES = 5;
+
+    /**
+     * Running estimate for one locale + route
+     */
+    private static final class State {
+        float[] mean; // NUM_CEPSTRA values
+        float noiseFloorDb;
+        long frames; // Effective frame count behind the mean
+        boolean dirty;
+
+        State(float[] mean, float noiseFloorDb, long frames) {
+            this.mean = mean;
+            this.noiseFloorDb = noiseFloorDb;
+            this.frames = frames;
+        }
+    }
+
+    private static AcousticStateStore instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Map<String, State> states = new HashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final MfccFrontEnd frontEnd = new MfccFrontEnd(); // Used on the worker thread only
+    private int unsavedUpdates = 0;
+
+    /**
+     * Process-wide instance (activity and background service share the estimates)
+     */
+    static synchronized AcousticStateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new AcousticStateStore(context);
+        }
+        return instance;
+    }
+
+    private AcousticStateStore(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * CURRENT AUDIO INPUT ROUTE
+     */
+    String currentRoute() {
+        AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        if (audioManager == null) return ROUTE_BUILTIN;
+        if (audioManager.isBluetoothScoOn()) return ROUTE_BLUETOOTH;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            for (AudioDeviceInfo device : audioManager.getDevices(AudioManager.GET_DEVICES_INPUTS)) {
+                int type = device.getType();
+                if (type == AudioDeviceInfo.TYPE_WIRED_HEADSET || type == AudioDeviceInfo.TYPE_USB_DEVICE
+                        || type == AudioDeviceInfo.TYPE_USB_HEADSET) {
+                    return ROUTE_HEADSET;
+                }
+            }
+        } else if (audioManager.isWiredHeadsetOn()) {
+            return ROUTE_HEADSET;
+        }
+        return ROUTE_BUILTIN;
+    }
+
+    /**
+     * -cmninit VALUE FOR A NEW DECODER (null if nothing learned yet)
+     */
+    String cmnInit(String localeTag) {
+        String route = currentRoute();
+        State state = get(localeTag, route);
+        if (state == null) {
+            VLog.i(TAG, "No stored CMN for {}/{}; decoder starts from defaults.", localeTag, route);
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < state.mean.length; i++) {
+            if (i > 0) value.append(',');
+            value.append(String.format(Locale.US, "%.2f", state.mean[i]));
+        }
+        VLog.i(TAG, () -> "Restoring CMN for " + localeTag + "/" + route + " (" + state.frames + " frames): " + value);
+        return value.toString();
+    }
+
+    /**
+     * LAST KNOWN NOISE FLOOR (dBFS) on the current route, or NaN
+     */
+    float noiseFloorDb(String localeTag) {
+        State state = get(localeTag, currentRoute());
+        return state != null ? state.noiseFloorDb : Float.NaN;
+    }
+
+    /**
+     * FOLD ONE FINISHED UTTERANCE INTO THE ESTIMATE (returns immediately)
+     */
+    void update(String localeTag, short[] audio) {
+        if (audio == null || audio.length == 0) return;
+        final String route = currentRoute();
+        worker.execute(() -> {
+            MfccFrontEnd.Frames frames = frontEnd.compute(audio, audio.length);
+            if (frames.size() == 0) return;
+
+            float uttNoiseDb = percentile(frames.energyDb, NOISE_PERCENTILE);
+            float threshold = uttNoiseDb + SPEECH_MARGIN_DB;
+            double[] sum = new double[MfccFrontEnd.NUM_CEPSTRA];
+            int speechFrames = 0;
+            for (int f = 0; f < frames.size(); f++) {
+                if (frames.energyDb[f] < threshold) continue;
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += frames.cepstra[f][i];
+                }
+                speechFrames++;
+            }
+            if (speechFrames < MIN_SPEECH_FRAMES) {
+                VLog.d(TAG, "Utterance skipped: only {} speech frames.", speechFrames);
+                return;
+            }
+
+            synchronized (this) {
+                String key = key(localeTag, route);
+                State state = loadLocked(key);
+                if (state == null) {
+                    state = new State(new float[MfccFrontEnd.NUM_CEPSTRA], uttNoiseDb, 0);
+                    states.put(key, state);
+                } else {
+                    state.noiseFloorDb += NOISE_SMOOTHING * (uttNoiseDb - state.noiseFloorDb);
+                }
+                long total = state.frames + speechFrames;
+                for (int i = 0; i < sum.length; i++) {
+                    state.mean[i] = (float) ((state.mean[i] * state.frames + sum[i]) / total);
+                }
+                state.frames = Math.min(total, MAX_EFFECTIVE_FRAMES);
+                state.dirty = true;
+                final State updated = state;
+                final int counted = speechFrames;
+                VLog.d(TAG, () -> "Updated " + key + ": " + counted + " speech frames, c0=" + updated.mean[0] +
+                        ", noise=" + updated.noiseFloorDb + "dB.");
+
+                if (++unsavedUpdates >= SNAPSHOT_EVERY_UPDATES) {
+                    saveDirtyLocked();
+                }
+            }
+        });
+    }
+
+    /**
+     * PERSIST PENDING CHANGES (returns immediately)
+     */
+    void snapshot() {
+        worker.execute(() -> {
+            synchronized (this) {
+                saveDirtyLocked();
+            }
+        });
+    }
+
+    private synchronized State get(String localeTag, String route) {
+        return loadLocked(key(localeTag, route));
+    }
+
+    private State loadLocked(String key) {
+        State state = states.get(key);
+        if (state != null) return state;
+
+        String stored = prefs.getString(key + "." + KEY_MEAN, null);
+        if (stored == null) return null;
+        String[] parts = stored.split(",");
+        if (parts.length != MfccFrontEnd.NUM_CEPSTRA) {
+            VLog.w(TAG, "Ignoring malformed stored mean for {}", key);
+            return null;
+        }
+        float[] mean = new float[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                mean[i] = Float.parseFloat(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            VLog.w(TAG, "Ignoring unparsable stored mean for {}: {}", key, e.getMessage());
+            return null;
+        }
+        state = new State(mean, prefs.getFloat(key + "." + KEY_NOISE, Float.NaN), prefs.getLong(key + "." + KEY_FRAMES, 0));
+        states.put(key, state);
+        return state;
+    }
+
+    private void saveDirtyLocked() {
+        SharedPreferences.Editor editor = null;
+        int saved = 0;
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            State state = entry.getValue();
+            if (!state.dirty) continue;
+            if (editor == null) editor = prefs.edit();
+
+            StringBuilder mean = new StringBuilder();
+            for (int i = 0; i < state.mean.length; i++) {
+                if (i > 0) mean.append(',');
+                mean.append(state.mean[i]);
+            }
+            editor.putString(entry.getKey() + "." + KEY_MEAN, mean.toString())
+                    .putFloat(entry.getKey() + "." + KEY_NOISE, state.noiseFloorDb)
+                    .putLong(entry.getKey() + "." + KEY_FRAMES, state.frames);
+            state.dirty = false;
+            saved++;
+        }
+        if (editor != null) {
+            editor.apply();
+            VLog.i(TAG, "Snapshot: saved {} acoustic state(s).", saved);
+        }
+        unsavedUpdates = 0;
+    }
+
+    private static String key(String localeTag, String route) {
+        return localeTag + "|" + route;
+    }
+
+    private static float percentile(float[] values, float fraction) {
+        float[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.ActivityNotFoundException; // Implicit launch with no handler
+import android.content.BroadcastReceiver; // Package change notifications
+import android.content.ComponentName; // Pre-resolved launch target
+import android.content.Context; // For package manager / receivers
+import android.content.Intent; // Launch intents
+import android.content.IntentFilter; // Package change notifications
+import android.content.pm.PackageManager; // Target resolution (startup only)
+import android.content.pm.ResolveInfo; // Target resolution (startup only)
+import android.provider.MediaStore; // Capture intent actions
+
+// ANDROIDX (SUPPORT LIBRARY) IMPORTS
+import androidx.core.content.ContextCompat; // For receiver registration flags
+
+// JAVA STANDARD IMPORTS
+import java.util.EnumMap; // Intent -> action registry
+import java.util.List; // Resolution results
+import java.util.Map; // Resolved targets
+import java.util.concurrent.ConcurrentHashMap; // Written off-thread, read on main thread
+
+/**
+ * ACTION EXECUTOR - Runs commands through a registry with pre-resolved launch targets
+ *
+ * Resolving ACTION_IMAGE_CAPTURE / ACTION_VIDEO_CAPTURE against the
+ * PackageManager is a synchronous binder call; doing it at the moment the
+ * user speaks puts it on the speech -> camera path. Here targets are resolved
+ * once at startup (off the main thread) and again whenever packages change,
+ * so launching is just startActivity() on a cached ComponentName.
+ *
+ * If a target hasn't been resolved yet, the capture intent is launched
+ * implicitly and ActivityNotFoundException means "no app" - still no
+ * PackageManager query on the hot path.
+ */
+final class ActionExecutor {
+
+    private static final String TAG = "ActionExecutor_SLATE";
+
+    // Capture actions whose targets are pre-resolved
+    private static final String[] CAPTURE_ACTIONS = {
+            MediaStore.ACTION_IMAGE_CAPTURE,
+            MediaStore.ACTION_VIDEO_CAPTURE
+    };
+
+    /**
+     * A registered action for one intent
+     */
+    interface Action {
+        void run();
+    }
+
+    /**
+     * Resolution result for one capture action
+     */
+    private static final class Target {
+        final boolean available; // At least one app handles the action
+        final ComponentName component; // Default handler, or null if the user must choose
+
+        Target(boolean available, ComponentName component) {
+            this.available = available;
+            this.component = component;
+        }
+    }
+
+    private final Context context;
+    private final EnumMap<CommandIntent, Action> registry = new EnumMap<>(CommandIntent.class);
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+
+    private final BroadcastReceiver packageChangeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context c, Intent intent) {
+            VLog.i(TAG, "Package change ({}): re-resolving capture targets.", intent.getAction());
+            refreshTargetsAsync();
+        }
+    };
+    private boolean isReceiverRegistered = false;
+
+    ActionExecutor(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * REGISTER WHAT AN INTENT DOES
+     */
+    void register(CommandIntent intent, Action action) {
+        registry.put(intent, action);
+    }
+
+    /**
+     * RUN THE ACTION FOR AN INTENT
+     *
+     * @return false if nothing is registered for it
+     */
+    boolean execute(CommandIntent intent) {
+        Action action = registry.get(intent);
+        if (action == null) {
+            VLog.w(TAG, "No action registered for {}", intent);
+            return false;
+        }
+        action.run();
+        return true;
+    }
+
+    /**
+     * START: resolve targets now and keep them fresh while registered
+     */
+    void start() {
+        if (!isReceiverRegistered) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            ContextCompat.registerReceiver(context, packageChangeReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+            isReceiverRegistered = true;
+        }
+        refreshTargetsAsync();
+    }
+
+    void stop() {
+        if (isReceiverRegistered) {
+            context.unregisterReceiver(packageChangeReceiver);
+            isReceiverRegistered = false;
+        }
+    }
+
+    /**
+     * LAUNCH A CAPTURE APP (no PackageManager query)
+     *
+     * @return false if no app can handle the action
+     */
+    boolean launchCapture(String action) {
+        Target target = targets.get(action);
+        if (target != null && !target.available) {
+            VLog.w(TAG, "No handler for {} (pre-resolved).", action);
+            return false;
+        }
+
+        Intent intent = new Intent(action);
+        if (target != null && target.component != null) {
+            intent.setComponent(target.component);
+        }
+        try {
+            context.startActivity(intent);
+            return true;
+        } catch (ActivityNotFoundException e) {
+            // Cached target went away (or resolution hadn't finished): re-resolve for next time
+            VLog.w(TAG, "Launch of {} failed: {}", action, e.getMessage());
+            refreshTargetsAsync();
+            return false;
+        }
+    }
+
+    private void refreshTargetsAsync() {
+        new Thread(() -> {
+            PackageManager packageManager = context.getPackageManager();
+            for (String action : CAPTURE_ACTIONS) {
+                targets.put(action, resolve(packageManager, action));
+            }
+        }).start();
+    }
+
+    private static Target resolve(PackageManager packageManager, String action) {
+        Intent intent = new Intent(action);
+        List<ResolveInfo> handlers = packageManager.queryIntentActivities(intent, PackageManager.MATCH_DEFAULT_ONLY);
+        if (handlers == null || handlers.isEmpty()) {
+            VLog.i(TAG, "Resolved {}: no handler.", action);
+            return new Target(false, null);
+        }
+
+        // A single handler (or a user-chosen default) can be launched explicitly
+        ResolveInfo preferred = handlers.size() == 1
+                ? handlers.get(0)
+                : packageManager.resolveActivity(intent, PackageManager.MATCH_DEFAULT_ONLY);
+        ComponentName component = null;
+        if (preferred != null && preferred.activityInfo != null && isConcreteHandler(preferred, handlers)) {
+            component = new ComponentName(preferred.activityInfo.packageName, preferred.activityInfo.name);
+        }
+        VLog.i(TAG, "Resolved {}: {} ({} handler(s)).", action,
+                component != null ? component.flattenToShortString() : "chooser", handlers.size());
+        return new Target(true, component);
+    }
+
+    /**
+     * resolveActivity() returns the system chooser when there is no default;
+     * only accept a result that is one of the actual handlers.
+     */
+    private static boolean isConcreteHandler(ResolveInfo candidate, List<ResolveInfo> handlers) {
+        for (ResolveInfo handler : handlers) {
+            if (handler.activityInfo != null
+                    && handler.activityInfo.packageName.equals(candidate.activityInfo.packageName)
+                    && handler.activityInfo.name.equals(candidate.activityInfo.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
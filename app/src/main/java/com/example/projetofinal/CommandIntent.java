@@ -0,0 +1,166 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.ArrayList; // Chained command lists
+import java.util.Collections; // Read-only phrase table
+import java.util.HashMap; // For phrase -> intent lookup
+import java.util.List; // Chained command lists
+import java.util.Locale; // For case normalization
+import java.util.Map; // For phrase -> intent lookup
+import java.util.regex.Matcher; // Trailing chain word
+import java.util.regex.Pattern; // Chain word splitting
+
+/**
+ * COMMAND INTENTS - Canonical meaning of a recognized phrase
+ *
+ * The grammar (commands.gram) allows several phrasings for the same action
+ * ("snap photo", "take picture", "photo"...). Everything after recognition
+ * works on the intent, never on the raw phrase, so cooldowns and queueing
+ * treat all phrasings of one action as the same command.
+ *
+ * One utterance may chain several commands ("take photo and send message");
+ * parseChain() splits it on the grammar's chain words.
+ *
+ * Keep the phrase lists and chain words in sync with commands.gram.
+ */
+enum CommandIntent {
+
+    PHOTO(
+            "take photo", "snap photo", "take picture", "snap picture",
+            "photo", "picture", "open camera for photo",
+            "capture photo", "capture picture"),
+
+    VIDEO(
+            "record video", "start video", "video", "capture video",
+            "film video", "start recording", "begin video"),
+
+    MESSAGE(
+            "send message", "send text", "message", "text",
+            "write message", "compose message"),
+
+    STOP_RECORDING(
+            "stop recording", "stop video", "end video");
+
+    // Every phrase of every intent, built once on class load
+    private static final Map<String, CommandIntent> PHRASE_LOOKUP = new HashMap<>();
+
+    static {
+        for (CommandIntent intent : values()) {
+            for (String phrase : intent.phrases) {
+                PHRASE_LOOKUP.put(phrase, intent);
+            }
+        }
+    }
+
+    // <chain_word> in commands.gram (no command phrase contains these words)
+    private static final Pattern CHAIN_WORDS = Pattern.compile("\\s+(?:and\\s+then|and|then)\\s+");
+    private static final Pattern TRAILING_CHAIN_WORD = Pattern.compile("\\s+(?:and\\s+then|and|then)$");
+
+    private final String[] phrases; // Grammar phrasings mapped to this intent
+
+    CommandIntent(String... phrases) {
+        this.phrases = phrases;
+    }
+
+    /**
+     * EVERY GRAMMAR PHRASE with its intent (read-only)
+     */
+    static Map<String, CommandIntent> phraseTable() {
+        return Collections.unmodifiableMap(PHRASE_LOOKUP);
+    }
+
+    /**
+     * PHRASE -> INTENT
+     *
+     * Returns the intent for a recognized phrase, or null if the phrase
+     * is not one of the known grammar alternatives.
+     */
+    static CommandIntent fromPhrase(String phrase) {
+        if (phrase == null) return null;
+        return PHRASE_LOOKUP.get(phrase.toLowerCase(Locale.US).trim());
+    }
+
+    /**
+     * CHAINED UTTERANCE -> INTENTS, in spoken order
+     *
+     * A single command yields a one-element list. Returns null if any part
+     * is not a known phrase.
+     */
+    static List<CommandIntent> parseChain(String utterance) {
+        if (utterance == null) return null;
+        List<CommandIntent> intents = new ArrayList<>();
+        for (String part : chainPhrases(utterance)) {
+            CommandIntent intent = PHRASE_LOOKUP.get(part);
+            if (intent == null) return null;
+            intents.add(intent);
+        }
+        return intents;
+    }
+
+    /**
+     * CHAINED UTTERANCE -> ITS PHRASES ("photo and send text" -> "photo", "send text")
+     */
+    static String[] chainPhrases(String utterance) {
+        return CHAIN_WORDS.split(utterance.toLowerCase(Locale.US).trim());
+    }
+
+    /**
+     * START OF A COMMAND OR CHAIN ("take", "photo and", "photo then snap")
+     *
+     * True when more words could still turn the utterance into a complete
+     * command; false for complete commands and for anything off-grammar.
+     */
+    static boolean isChainPrefix(String utterance) {
+        if (utterance == null) return false;
+        String text = utterance.toLowerCase(Locale.US).trim();
+
+        // Trailing chain word: a prefix if everything before it is complete
+        Matcher trailing = TRAILING_CHAIN_WORD.matcher(text);
+        if (trailing.find()) {
+            return parseChain(text.substring(0, trailing.start())) != null;
+        }
+
+        String[] parts = CHAIN_WORDS.split(text);
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (!PHRASE_LOOKUP.containsKey(parts[i])) return false;
+        }
+        String last = parts[parts.length - 1] + " ";
+        for (String phrase : PHRASE_LOOKUP.keySet()) {
+            if (phrase.startsWith(last)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * ORDER A BATCH FOR EXECUTION
+     *
+     * Intents that don't touch the camera move ahead of camera intents,
+     * since a camera intent may hand the screen to an external app and
+     * suspend recognition. Camera intents keep their spoken order among
+     * themselves ("video then stop recording").
+     */
+    static List<CommandIntent> executionOrder(List<CommandIntent> batch) {
+        List<CommandIntent> ordered = new ArrayList<>(batch.size());
+        for (CommandIntent intent : batch) {
+            if (!intent.usesCamera()) ordered.add(intent);
+        }
+        for (CommandIntent intent : batch) {
+            if (intent.usesCamera()) ordered.add(intent);
+        }
+        return ordered;
+    }
+
+    /**
+     * Whether the action drives the camera (in-app or an external capture app)
+     */
+    boolean usesCamera() {
+        return this != MESSAGE;
+    }
+
+    /**
+     * Whether the action brings up a camera (needs the activity in front)
+     */
+    boolean startsCapture() {
+        return this == PHOTO || this == VIDEO;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.ArrayDeque; // FIFO storage for held commands
+import java.util.EnumMap; // Per-intent debounce timestamps
+
+/**
+ * COMMAND QUEUE - Bounded FIFO of recognized commands with per-intent debouncing
+ *
+ * Commands recognized while an action (camera/video) is pending are held here
+ * and executed in order once the action finishes, instead of being dropped.
+ *
+ * Debouncing is keyed on the canonical intent, so "snap photo" followed by
+ * "take picture" within the debounce window counts as one command, while a
+ * deliberate repeat after the window is accepted.
+ *
+ * Not thread-safe: only used from the main thread.
+ */
+final class CommandQueue {
+
+    /**
+     * A command waiting to be executed
+     */
+    static final class PendingCommand {
+        final CommandIntent intent; // What to do
+        final String phrase; // What the user actually said (for logs/UI)
+        final long receivedAtMs; // When it was recognized
+
+        PendingCommand(CommandIntent intent, String phrase, long receivedAtMs) {
+            this.intent = intent;
+            this.phrase = phrase;
+            this.receivedAtMs = receivedAtMs;
+        }
+    }
+
+    private final int capacity; // Maximum number of held commands
+    private final long debounceMs; // Minimum gap between two commands of the same intent
+    private final ArrayDeque<PendingCommand> pending;
+    private final EnumMap<CommandIntent, Long> lastAcceptedAtMs = new EnumMap<>(CommandIntent.class);
+
+    CommandQueue(int capacity, long debounceMs) {
+        this.capacity = capacity;
+        this.debounceMs = debounceMs;
+        this.pending = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * DEBOUNCE CHECK
+     *
+     * Returns true (and records the timestamp) if a command of this intent
+     * may be accepted now. Returns false for a repeat inside the debounce window.
+     */
+    boolean tryAccept(CommandIntent intent, long nowMs) {
+        Long last = lastAcceptedAtMs.get(intent);
+        if (last != null && nowMs - last < debounceMs) {
+            return false;
+        }
+        lastAcceptedAtMs.put(intent, nowMs);
+        return true;
+    }
+
+    /**
+     * HOLD A COMMAND FOR LATER
+     *
+     * Returns false if the queue is full; the oldest commands are kept
+     * because they reflect what the user asked for first.
+     */
+    boolean offer(CommandIntent intent, String phrase, long nowMs) {
+        if (pending.size() >= capacity) {
+            return false;
+        }
+        pending.addLast(new PendingCommand(intent, phrase, nowMs));
+        return true;
+    }
+
+    /**
+     * NEXT HELD COMMAND (or null if empty)
+     */
+    PendingCommand poll() {
+        return pending.pollFirst();
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    void clear() {
+        pending.clear();
+    }
+}
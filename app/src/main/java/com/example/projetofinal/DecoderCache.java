@@ -0,0 +1,287 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.app.ActivityManager; // For the app's memory class
+import android.content.Context; // For system services
+import android.media.AudioFormat; // Recreated recorder format
+import android.media.AudioRecord; // Each recognizer's microphone input
+import android.media.MediaRecorder; // Recreated recorder source
+
+// JAVA STANDARD IMPORTS
+import java.io.IOException; // For build failures
+import java.lang.reflect.Field; // SpeechRecognizer keeps its recorder private
+import java.util.ArrayList; // For eviction batches
+import java.util.Collections; // For single-entry batches
+import java.util.Iterator; // For LRU traversal
+import java.util.LinkedHashMap; // Access-ordered map = LRU
+import java.util.List; // For eviction batches
+import java.util.Map; // For LRU traversal
+
+// POCKETSPHINX (SPEECH RECOGNITION) IMPORTS
+import edu.cmu.pocketsphinx.SpeechRecognizer; // Cached engine
+
+/**
+ * DECODER CACHE - Process-wide LRU of built recognizers, one per locale
+ *
+ * Building a recognizer (loading model + dictionary) takes seconds; switching
+ * back to a language whose recognizer is still warm should be instant. Entries
+ * are kept in least-recently-used order and evicted when the estimated native
+ * footprint exceeds the budget or the entry cap. The most recently used entry
+ * is never evicted, so the active language always stays loaded.
+ *
+ * Lives for the whole process, so a warm recognizer also survives activity
+ * recreation (rotation, locale change).
+ *
+ * Evicted recognizers are shut down on a background thread.
+ *
+ * Each SpeechRecognizer opens an AudioRecord in its constructor and keeps it
+ * until shutdown(), and a second open input can make the next build fail
+ * ("microphone might be already in use"). Only the entry being acquired
+ * keeps its input; the others are parked (recorder released) and get a
+ * fresh recorder when they are acquired again. SpeechRecognizer has no API
+ * for that, so parking goes through its private recorder field; if that
+ * field can't be read or written (a changed library version), the entry is
+ * shut down instead (right away, so its input is released before the next
+ * build) and rebuilt when it is needed again.
+ */
+final class DecoderCache {
+
+    private static final String TAG = "DecoderCache_SLATE";
+
+    // Hard cap on simultaneously loaded recognizers
+    private static final int MAX_ENTRIES = 3;
+
+    // Share of the app's heap class we allow decoders to occupy
+    private static final int MEMORY_CLASS_DIVISOR = 4;
+
+    // Recorder settings SpeechRecognizer uses (0.4 s buffer, 16-bit mono)
+    private static final float RECORDER_BUFFER_SECONDS = 0.4f;
+
+    /**
+     * Builds a recognizer on a cache miss (runs on the caller's thread)
+     */
+    interface Builder {
+        SpeechRecognizer build() throws IOException;
+
+        long footprintBytes();
+    }
+
+    private static final class Entry {
+        final SpeechRecognizer recognizer;
+        final long footprintBytes;
+
+        Entry(SpeechRecognizer recognizer, long footprintBytes) {
+            this.recognizer = recognizer;
+            this.footprintBytes = footprintBytes;
+        }
+    }
+
+    private static DecoderCache instance;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(MAX_ENTRIES + 1, 0.75f, true);
+    private long totalBytes = 0;
+
+    static synchronized DecoderCache getInstance(Context context) {
+        if (instance == null) {
+            ActivityManager activityManager = (ActivityManager) context.getApplicationContext()
+                    .getSystemService(Context.ACTIVITY_SERVICE);
+            long memoryClassBytes = (long) activityManager.getMemoryClass() * 1024L * 1024L;
+            instance = new DecoderCache(memoryClassBytes / MEMORY_CLASS_DIVISOR);
+        }
+        return instance;
+    }
+
+    private DecoderCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        VLog.i(TAG, "Decoder cache budget: {}MB, max {} entries.", budgetBytes / (1024 * 1024), MAX_ENTRIES);
+    }
+
+    /**
+     * GET OR BUILD
+     *
+     * Returns the warm recognizer for this key, or builds one. Builds are
+     * serialized so two callers never load the same model twice.
+     * Must be called off the main thread.
+     */
+    synchronized SpeechRecognizer acquire(String key, Builder builder) throws IOException {
+        Entry entry = entries.get(key); // Also marks it most recently used
+        parkAudioInputsExcept(key);
+        if (entry != null) {
+            if (unparkAudioInput(entry.recognizer)) {
+                VLog.i(TAG, "Cache HIT for '{}'.", key);
+                return entry.recognizer;
+            }
+            // Its recorder can't be reattached: rebuild rather than fail the switch
+            VLog.w(TAG, "Cache HIT for '{}' without a usable recorder; rebuilding.", key);
+            entries.remove(key);
+            totalBytes -= entry.footprintBytes;
+            shutdown(Collections.singletonList(entry.recognizer), "unusable recorder");
+        }
+
+        long start = System.currentTimeMillis();
+        SpeechRecognizer recognizer = builder.build();
+        entry = new Entry(recognizer, builder.footprintBytes());
+        entries.put(key, entry);
+        totalBytes += entry.footprintBytes;
+        final long footprintKb = entry.footprintBytes / 1024;
+        final long builtMs = System.currentTimeMillis() - start;
+        VLog.i(TAG, () -> "Cache MISS for '" + key + "': built in " + builtMs + "ms (~" + footprintKb + "KB, " +
+                entries.size() + " cached).");
+
+        evictOverBudget();
+        return recognizer;
+    }
+
+    /**
+     * DROP ONE ENTRY (e.g. a recognizer that keeps failing)
+     */
+    synchronized void invalidate(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.footprintBytes;
+            shutdownInBackground(Collections.singletonList(entry.recognizer), "invalidate " + key);
+        }
+    }
+
+    /**
+     * MEMORY PRESSURE: keep only the given (active) key
+     */
+    synchronized void trimTo(String keepKey) {
+        List<SpeechRecognizer> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            if (!next.getKey().equals(keepKey)) {
+                evicted.add(next.getValue().recognizer);
+                totalBytes -= next.getValue().footprintBytes;
+                iterator.remove();
+            }
+        }
+        shutdownInBackground(evicted, "trim");
+    }
+
+    /**
+     * RELEASE EVERYTHING (app is finishing)
+     */
+    synchronized void clear() {
+        List<SpeechRecognizer> evicted = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            evicted.add(entry.recognizer);
+        }
+        entries.clear();
+        totalBytes = 0;
+        shutdownInBackground(evicted, "clear");
+    }
+
+    private void evictOverBudget() {
+        List<SpeechRecognizer> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        // Eldest first; always keep the most recent entry
+        while (entries.size() > 1 && (entries.size() > MAX_ENTRIES || totalBytes > budgetBytes) && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            VLog.i(TAG, "Evicting '{}' (cache ~{}KB).", eldest.getKey(), totalBytes / 1024);
+            evicted.add(eldest.getValue().recognizer);
+            totalBytes -= eldest.getValue().footprintBytes;
+            iterator.remove();
+        }
+        shutdownInBackground(evicted, "evict");
+    }
+
+    private static void shutdownInBackground(List<SpeechRecognizer> recognizers, String reason) {
+        if (recognizers.isEmpty()) return;
+        new Thread(() -> shutdown(recognizers, reason)).start();
+    }
+
+    /**
+     * Shut down on the caller's thread (its audio input is released on return)
+     */
+    private static void shutdown(List<SpeechRecognizer> recognizers, String reason) {
+        if (recognizers.isEmpty()) return;
+        for (SpeechRecognizer recognizer : recognizers) {
+            try {
+                recognizer.cancel();
+                recognizer.shutdown();
+            } catch (Exception e) {
+                VLog.e(TAG, "Exception shutting down recognizer ({}).", reason, e);
+            }
+        }
+        VLog.i(TAG, "Shut down {} recognizer(s) ({}).", recognizers.size(), reason);
+    }
+
+    // ==================== AUDIO INPUT PARKING ====================
+
+    /**
+     * Release the recorder of every idle entry except key (evict it if that's impossible)
+     */
+    private void parkAudioInputsExcept(String key) {
+        List<SpeechRecognizer> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            if (next.getKey().equals(key)) continue;
+            AudioRecord recorder;
+            try {
+                recorder = recorderOf(next.getValue().recognizer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                VLog.w(TAG, "Cannot park audio input of '{}'; evicting it.", next.getKey(), e);
+                evicted.add(next.getValue().recognizer);
+                totalBytes -= next.getValue().footprintBytes;
+                iterator.remove();
+                continue;
+            }
+            if (recorder == null || recorder.getState() == AudioRecord.STATE_UNINITIALIZED) continue;
+            if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
+                VLog.w(TAG, "Not parking '{}': still recording.", next.getKey());
+                continue;
+            }
+            recorder.release(); // getState() is UNINITIALIZED from now on
+            VLog.d(TAG, "Parked audio input of '{}'.", next.getKey());
+        }
+        shutdown(evicted, "unparkable"); // Before the caller opens another input
+    }
+
+    /**
+     * Give a parked recognizer a fresh recorder (same settings as its constructor)
+     *
+     * @return false if the recorder field is not accessible (the entry must be rebuilt)
+     * @throws IOException if the microphone can't be opened
+     */
+    private static boolean unparkAudioInput(SpeechRecognizer recognizer) throws IOException {
+        AudioRecord recorder;
+        try {
+            recorder = recorderOf(recognizer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            VLog.w(TAG, "SpeechRecognizer recorder not accessible.", e);
+            return false;
+        }
+        if (recorder != null && recorder.getState() != AudioRecord.STATE_UNINITIALIZED) return true;
+
+        int sampleRate = (int) recognizer.getDecoder().getConfig().getFloat("-samprate");
+        int bufferSize = Math.round(sampleRate * RECORDER_BUFFER_SECONDS);
+        AudioRecord reopened = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, sampleRate,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, bufferSize * 2);
+        if (reopened.getState() == AudioRecord.STATE_UNINITIALIZED) {
+            reopened.release();
+            throw new IOException("Failed to reopen recorder. Microphone might be already in use.");
+        }
+        try {
+            recorderField().set(recognizer, reopened);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            reopened.release();
+            VLog.w(TAG, "Cannot reattach recorder.", e);
+            return false;
+        }
+    }
+
+    private static AudioRecord recorderOf(SpeechRecognizer recognizer) throws ReflectiveOperationException {
+        return (AudioRecord) recorderField().get(recognizer);
+    }
+
+    private static Field recorderField() throws NoSuchFieldException {
+        Field field = SpeechRecognizer.class.getDeclaredField("recorder");
+        field.setAccessible(true);
+        return field;
+    }
+}
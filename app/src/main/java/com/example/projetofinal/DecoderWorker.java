@@ -0,0 +1,84 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.os.Handler; // Main-thread continuations
+import android.os.Looper; // For main thread reference
+
+// JAVA STANDARD IMPORTS
+import java.util.concurrent.ExecutorService; // Serialized decoder work
+import java.util.concurrent.Executors; // Serialized decoder work
+import java.util.concurrent.atomic.AtomicInteger; // Busy count, updated off the main thread
+
+/**
+ * DECODER WORKER - The one background thread that touches idle decoders
+ *
+ * Between two listening sessions the decoder is idle and may be used off
+ * the main thread (copying the utterance audio out, a phone-loop
+ * re-decode, a grammar reset). Decoders are shared through DecoderCache by
+ * the activity and the background service, so every off-main decoder
+ * mutation of either goes through one process-wide instance: building or
+ * acquiring a recognizer, cache eviction / invalidation / clearing (which
+ * shut decoders down), and the work above. So:
+ * - All of it runs on this single thread, in submission order.
+ * - isBusy() is true from run() until the task has returned. The count is
+ *   updated on the worker thread itself, so it never depends on a
+ *   main-thread message that might be removed (onPause clears the handler).
+ * - whenIdle() runs a main-thread action once everything submitted before
+ *   it has finished.
+ */
+final class DecoderWorker {
+
+    private static final String TAG = "DecoderWorker_SLATE";
+
+    private static DecoderWorker instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Process-wide instance (activity and background service share decoders)
+     */
+    static synchronized DecoderWorker getInstance() {
+        if (instance == null) {
+            instance = new DecoderWorker();
+        }
+        return instance;
+    }
+
+    private DecoderWorker() {
+    }
+
+    /**
+     * True while submitted work has not finished
+     */
+    boolean isBusy() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * RUN ON THE WORKER THREAD (after everything submitted earlier)
+     */
+    void run(Runnable task) {
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                VLog.e(TAG, "Decoder task failed: {}", e.getMessage(), e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * RUN ON THE MAIN THREAD once all work submitted so far has finished
+     *
+     * Work submitted after this call may still be running when the action
+     * runs: actions that touch the decoder check isBusy() again.
+     */
+    void whenIdle(Runnable mainThreadAction) {
+        executor.execute(() -> mainHandler.post(mainThreadAction));
+    }
+}
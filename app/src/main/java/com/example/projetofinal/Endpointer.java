@@ -0,0 +1,106 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.List; // Parsed chain
+
+/**
+ * ENDPOINTER - How long to wait after end of speech before finalizing
+ *
+ * The decoder's VAD reports end of speech after a short fixed run of
+ * silence (VAD_POSTSPEECH_FRAMES). The utterance is only finalized (stop()
+ * -> onResult) once a further, dynamic window has passed with no new
+ * speech:
+ * - EXTENDABLE: the partial hypothesis is a full command (or chain), but
+ *   the grammar lets every command be followed by "and ..." / "then ...".
+ *   Wait a little: long enough for the short pause before a chain word,
+ *   short enough that a lone command still feels immediate.
+ * - COMPLETE: a full chain of MAX_CHAIN_COMMANDS commands; longer chains
+ *   are practically never spoken, so finalize almost at once.
+ * - PREFIX: the hypothesis is the start of a command ("take", "photo and"),
+ *   the user is probably pausing mid-phrase, wait longer.
+ * - NONE: nothing usable decoded yet, in between.
+ * Background noise makes the VAD drop out inside words, so the window grows
+ * with the measured noise floor, within fixed bounds.
+ *
+ * If speech resumes inside the window, the caller cancels the finalization.
+ */
+final class Endpointer {
+
+    /**
+     * What the partial hypothesis says about the utterance so far
+     */
+    enum HypothesisState {
+        NONE, // Nothing decoded (or not a command)
+        PREFIX, // Start of a command or of a chain
+        EXTENDABLE, // A full command or chain that a chain word could still continue
+        COMPLETE // A chain of MAX_CHAIN_COMMANDS commands
+    }
+
+    // Trailing silence before the decoder reports end of speech (frames of 10 ms; library default 50)
+    static final int VAD_POSTSPEECH_FRAMES = 20;
+
+    // ==================== WINDOW SETTINGS ====================
+
+    // Chains this long are treated as finished
+    static final int MAX_CHAIN_COMMANDS = 3;
+
+    // Extra wait after end of speech, per hypothesis state
+    private static final long COMPLETE_WINDOW_MS = 100;
+    private static final long EXTENDABLE_WINDOW_MS = 250;
+    private static final long NONE_WINDOW_MS = 350;
+    private static final long PREFIX_WINDOW_MS = 700;
+
+    // Noise floor range (dBFS) over which up to MAX_NOISE_EXTRA_MS is added
+    private static final float QUIET_NOISE_DB = -60f;
+    private static final float NOISY_NOISE_DB = -35f;
+    private static final long MAX_NOISE_EXTRA_MS = 400;
+
+    // Hard bounds for the window
+    private static final long MIN_WINDOW_MS = 50;
+    private static final long MAX_WINDOW_MS = 1200;
+
+    private Endpointer() {
+    }
+
+    /**
+     * CLASSIFY THE LATEST PARTIAL HYPOTHESIS
+     */
+    static HypothesisState classify(String partial) {
+        if (partial == null || partial.trim().isEmpty()) return HypothesisState.NONE;
+        List<CommandIntent> chain = CommandIntent.parseChain(partial);
+        if (chain != null) {
+            return chain.size() >= MAX_CHAIN_COMMANDS ? HypothesisState.COMPLETE : HypothesisState.EXTENDABLE;
+        }
+        return CommandIntent.isChainPrefix(partial) ? HypothesisState.PREFIX : HypothesisState.NONE;
+    }
+
+    /**
+     * FINALIZATION WINDOW (ms after end of speech)
+     *
+     * @param noiseFloorDb last measured noise floor on this route, NaN if unknown
+     */
+    static long windowMs(HypothesisState state, float noiseFloorDb) {
+        long window;
+        switch (state) {
+            case COMPLETE:
+                window = COMPLETE_WINDOW_MS;
+                break;
+            case EXTENDABLE:
+                window = EXTENDABLE_WINDOW_MS;
+                break;
+            case PREFIX:
+                window = PREFIX_WINDOW_MS;
+                break;
+            case NONE:
+            default:
+                window = NONE_WINDOW_MS;
+                break;
+        }
+
+        if (!Float.isNaN(noiseFloorDb)) {
+            float noisiness = (noiseFloorDb - QUIET_NOISE_DB) / (NOISY_NOISE_DB - QUIET_NOISE_DB);
+            window += (long) (MAX_NOISE_EXTRA_MS * Math.max(0f, Math.min(1f, noisiness)));
+        }
+        return Math.max(MIN_WINDOW_MS, Math.min(MAX_WINDOW_MS, window));
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // For preferences
+import android.content.SharedPreferences; // Persisted counts
+
+// JAVA STANDARD IMPORTS
+import java.util.ArrayList; // Sorted alternatives
+import java.util.Collections; // Sorted alternatives
+import java.util.HashMap; // Counts per locale
+import java.util.LinkedHashSet; // Expanded grammar phrases
+import java.util.List; // Sorted alternatives
+import java.util.Locale; // Weight formatting
+import java.util.Map; // Counts per locale
+import java.util.Set; // Expanded grammar phrases
+import java.util.regex.Matcher; // Locating the command rule
+import java.util.regex.Pattern; // Locating the command rule
+
+/**
+ * GRAMMAR PRIORS - Per-phrase usage weights for the command grammar
+ *
+ * commands.gram gives every alternative the same weight, although a few
+ * phrases ("photo", "take photo") make up most of the traffic. This class
+ * counts accepted phrases per locale and rewrites the grammar's
+ * <single_command> rule as a flat list of every phrase with a JSGF weight:
+ * - The phrases are the grammar's own: <single_command> is expanded
+ *   (alternatives, groups and rule references). A grammar using anything
+ *   else there (optional parts, repeats, tags) is left unweighted, so the
+ *   weighting never changes what the grammar accepts.
+ * - Weight = Laplace-smoothed share of the counts (PSEUDO_COUNT per
+ *   phrase), so a phrase never used keeps a reachable prior.
+ * - Counts are halved once a locale's total passes MAX_HISTORY, so the
+ *   weights follow changing habits and the gap between phrases stays
+ *   bounded.
+ * - Until anything is counted the shipped grammar is used unchanged.
+ *
+ * Callers reload the grammar between utterances, on the decoder worker,
+ * when isReweightDue() (see RecognizerFactory.reloadGrammarIfDue). One
+ * instance per process (getInstance); the methods may be called from any
+ * thread.
+ */
+final class GrammarPriors {
+
+    private static final String TAG = "GrammarPriors_SLATE";
+
+    private static final String PREFS_NAME = "grammar_priors";
+
+    // ==================== WEIGHTING SETTINGS ====================
+
+    // Pseudo-count added to every phrase (Laplace smoothing)
+    private static final float PSEUDO_COUNT = 2f;
+
+    // A locale's counts are halved once their total passes this
+    private static final float MAX_HISTORY = 100f;
+
+    // Regenerate the grammar after this many new acceptances
+    private static final int REWEIGHT_EVERY_ACCEPTED = 5;
+
+    // The rule that lists the individual commands (replaced by the weighted list)
+    private static final String COMMAND_RULE_NAME = "single_command";
+    private static final Pattern COMMAND_RULE = Pattern.compile("(?s)(<" + COMMAND_RULE_NAME + ">\\s*=).*?;");
+
+    // Rule definitions and comments, for expanding the command rule
+    private static final Pattern RULE_DEFINITION = Pattern.compile("(?s)<([\\w.]+)>\\s*=(.*?);");
+    private static final Pattern COMMENT = Pattern.compile("(?s)//[^\\n]*|/\\*.*?\\*/");
+    private static final Pattern TOKEN = Pattern.compile("<[\\w.]+>|[()|]|[^\\s()|<>]+");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}'_-]+");
+
+    // Expansion stops (grammar left unweighted) beyond this many phrases
+    private static final int MAX_EXPANDED_PHRASES = 500;
+
+    private static GrammarPriors instance;
+
+    private final SharedPreferences prefs;
+    private final Map<String, Map<String, Float>> counts = new HashMap<>(); // locale -> phrase -> count
+    private final Map<String, Integer> acceptedSinceWeighting = new HashMap<>(); // locale -> new acceptances
+
+    /**
+     * Process-wide instance (activity and background service share the counts)
+     */
+    static synchronized GrammarPriors getInstance(Context context) {
+        if (instance == null) {
+            instance = new GrammarPriors(context);
+        }
+        return instance;
+    }
+
+    private GrammarPriors(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * COUNT AN ACCEPTED UTTERANCE (every phrase of a chain counts)
+     */
+    synchronized void recordAccepted(String localeTag, String utterance) {
+        Map<String, Float> localeCounts = load(localeTag);
+        Set<String> changed = new LinkedHashSet<>();
+        float total = 0f;
+        for (String phrase : CommandIntent.chainPhrases(utterance)) {
+            if (CommandIntent.fromPhrase(phrase) == null) continue;
+            Float count = localeCounts.get(phrase);
+            localeCounts.put(phrase, (count != null ? count : 0f) + 1f);
+            changed.add(phrase);
+        }
+        if (changed.isEmpty()) return;
+        for (Float count : localeCounts.values()) {
+            total += count;
+        }
+
+        // Forget half the history so recent use dominates (then every key changes)
+        boolean decay = total > MAX_HISTORY;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Float> entry : localeCounts.entrySet()) {
+            if (decay) entry.setValue(entry.getValue() / 2f);
+            if (decay || changed.contains(entry.getKey())) {
+                editor.putFloat(key(localeTag, entry.getKey()), entry.getValue());
+            }
+        }
+        editor.apply();
+
+        Integer pending = acceptedSinceWeighting.get(localeTag);
+        acceptedSinceWeighting.put(localeTag, (pending != null ? pending : 0) + 1);
+    }
+
+    /**
+     * Enough new acceptances that the loaded weights are stale
+     */
+    synchronized boolean isReweightDue(String localeTag) {
+        Integer pending = acceptedSinceWeighting.get(localeTag);
+        return pending != null && pending >= REWEIGHT_EVERY_ACCEPTED;
+    }
+
+    /**
+     * A failed reload waits for the next REWEIGHT_EVERY_ACCEPTED acceptances
+     */
+    synchronized void postponeReweight(String localeTag) {
+        acceptedSinceWeighting.put(localeTag, 0);
+    }
+
+    /**
+     * THE BUNDLE'S GRAMMAR WITH USAGE WEIGHTS
+     *
+     * Returns the grammar unchanged if nothing was counted yet, it has no
+     * <single_command> rule or that rule can't be expanded.
+     */
+    synchronized String weightedGrammar(String localeTag, String grammar) {
+        acceptedSinceWeighting.put(localeTag, 0);
+        Map<String, Float> localeCounts = load(localeTag);
+        Matcher rule = COMMAND_RULE.matcher(grammar);
+        if (localeCounts.isEmpty() || !rule.find()) return grammar;
+
+        Set<String> phrases = expandCommandRule(grammar);
+        if (phrases == null) {
+            VLog.w(TAG, "Command rule of '{}' can't be expanded; grammar left unweighted.", localeTag);
+            return grammar;
+        }
+        float total = 0f;
+        for (String phrase : phrases) {
+            total += countOf(localeCounts, phrase);
+        }
+        final float denominator = total + PSEUDO_COUNT * phrases.size();
+
+        // Most likely first (the order doesn't change the search; it reads better in logs)
+        List<String> ordered = new ArrayList<>(phrases);
+        Collections.sort(ordered, (a, b) -> {
+            int byCount = Float.compare(countOf(localeCounts, b), countOf(localeCounts, a));
+            return byCount != 0 ? byCount : a.compareTo(b);
+        });
+
+        StringBuilder body = new StringBuilder(rule.group(1));
+        for (int i = 0; i < ordered.size(); i++) {
+            String phrase = ordered.get(i);
+            float weight = (countOf(localeCounts, phrase) + PSEUDO_COUNT) / denominator;
+            body.append(i == 0 ? "\n    " : " |\n    ")
+                    .append(String.format(Locale.US, "/%.4f/ ", weight))
+                    .append(phrase);
+        }
+        body.append(';');
+
+        VLog.i(TAG, "Weighted grammar for '{}' from {} counted commands; top: '{}'.", localeTag, total, ordered.get(0));
+        return grammar.substring(0, rule.start()) + body + grammar.substring(rule.end());
+    }
+
+    // ==================== GRAMMAR EXPANSION ====================
+
+    /**
+     * EVERY PHRASE <single_command> ACCEPTS, or null if it uses unsupported syntax
+     */
+    static Set<String> expandCommandRule(String grammar) {
+        Map<String, String> rules = new HashMap<>();
+        Matcher definition = RULE_DEFINITION.matcher(COMMENT.matcher(grammar).replaceAll(" "));
+        while (definition.find()) {
+            rules.put(definition.group(1), definition.group(2));
+        }
+        if (!rules.containsKey(COMMAND_RULE_NAME)) return null;
+        List<String> phrases = expandRule(COMMAND_RULE_NAME, rules, new ArrayList<>());
+        return phrases == null || phrases.isEmpty() ? null : new LinkedHashSet<>(phrases);
+    }
+
+    private static List<String> expandRule(String name, Map<String, String> rules, List<String> expanding) {
+        String body = rules.get(name);
+        if (body == null || expanding.contains(name)) return null; // Undefined or recursive
+        List<String> tokens = new ArrayList<>();
+        Matcher token = TOKEN.matcher(body);
+        while (token.find()) {
+            tokens.add(token.group());
+        }
+        expanding.add(name);
+        int[] position = {0};
+        List<String> phrases = expandAlternatives(tokens, position, rules, expanding);
+        expanding.remove(name);
+        return phrases != null && position[0] == tokens.size() ? phrases : null;
+    }
+
+    /**
+     * sequence ('|' sequence)*
+     */
+    private static List<String> expandAlternatives(List<String> tokens, int[] position, Map<String, String> rules,
+                                                   List<String> expanding) {
+        List<String> phrases = expandSequence(tokens, position, rules, expanding);
+        while (phrases != null && position[0] < tokens.size() && tokens.get(position[0]).equals("|")) {
+            position[0]++;
+            List<String> alternative = expandSequence(tokens, position, rules, expanding);
+            if (alternative == null) return null;
+            phrases.addAll(alternative);
+        }
+        return phrases != null && phrases.size() <= MAX_EXPANDED_PHRASES ? phrases : null;
+    }
+
+    /**
+     * (word | <rule> | '(' alternatives ')')+ as the product of its items
+     */
+    private static List<String> expandSequence(List<String> tokens, int[] position, Map<String, String> rules,
+                                               List<String> expanding) {
+        List<String> phrases = new ArrayList<>();
+        phrases.add("");
+        while (position[0] < tokens.size()) {
+            String token = tokens.get(position[0]);
+            if (token.equals("|") || token.equals(")")) break;
+            position[0]++;
+
+            List<String> item;
+            if (token.equals("(")) {
+                item = expandAlternatives(tokens, position, rules, expanding);
+                if (item == null || position[0] >= tokens.size() || !tokens.get(position[0]).equals(")")) return null;
+                position[0]++;
+            } else if (token.startsWith("<")) {
+                item = expandRule(token.substring(1, token.length() - 1), rules, expanding);
+            } else if (WORD.matcher(token).matches()) {
+                item = Collections.singletonList(token.toLowerCase(Locale.US));
+            } else {
+                return null; // [optional], repeats, weights, tags: not expanded
+            }
+            if (item == null || (long) phrases.size() * item.size() > MAX_EXPANDED_PHRASES) return null;
+
+            List<String> product = new ArrayList<>(phrases.size() * item.size());
+            for (String prefix : phrases) {
+                for (String suffix : item) {
+                    product.add(prefix.isEmpty() ? suffix : prefix + " " + suffix);
+                }
+            }
+            phrases = product;
+        }
+        return phrases.size() == 1 && phrases.get(0).isEmpty() ? null : phrases; // Empty sequence
+    }
+
+    private static float countOf(Map<String, Float> localeCounts, String phrase) {
+        Float count = localeCounts.get(phrase);
+        return count != null ? count : 0f;
+    }
+
+    private Map<String, Float> load(String localeTag) {
+        Map<String, Float> localeCounts = counts.get(localeTag);
+        if (localeCounts == null) {
+            localeCounts = new HashMap<>();
+            for (String phrase : CommandIntent.phraseTable().keySet()) {
+                float count = prefs.getFloat(key(localeTag, phrase), 0f);
+                if (count > 0f) localeCounts.put(phrase, count);
+            }
+            counts.put(localeTag, localeCounts);
+        }
+        return localeCounts;
+    }
+
+    private static String key(String localeTag, String phrase) {
+        return localeTag + "|" + phrase;
+    }
+}
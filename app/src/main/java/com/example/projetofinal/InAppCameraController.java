@@ -0,0 +1,256 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.ContentValues; // For MediaStore entry metadata
+import android.content.Context; // For content resolver / executors
+import android.net.Uri; // Where captured media was saved
+import android.os.Build; // For API level checks
+import android.provider.MediaStore; // For gallery output locations
+import android.view.View; // For preview visibility
+
+// ANDROIDX (SUPPORT LIBRARY) IMPORTS
+import androidx.camera.core.CameraSelector; // Which lens to use
+import androidx.camera.core.ImageCapture; // Still capture use case
+import androidx.camera.core.ImageCaptureException; // Still capture failures
+import androidx.camera.core.Preview; // Viewfinder use case
+import androidx.camera.lifecycle.ProcessCameraProvider; // Binds use cases to the activity lifecycle
+import androidx.camera.video.FallbackStrategy; // Video quality fallback
+import androidx.camera.video.MediaStoreOutputOptions; // Video output location
+import androidx.camera.video.Quality; // Video quality presets
+import androidx.camera.video.QualitySelector; // Video quality selection
+import androidx.camera.video.Recorder; // Video encoder/muxer
+import androidx.camera.video.Recording; // Active video recording handle
+import androidx.camera.video.VideoCapture; // Video use case
+import androidx.camera.video.VideoRecordEvent; // Recording lifecycle events
+import androidx.camera.view.PreviewView; // Viewfinder surface
+import androidx.core.content.ContextCompat; // For main thread executor
+import androidx.lifecycle.LifecycleOwner; // Camera follows the activity lifecycle
+
+// GUAVA IMPORTS (CameraX futures)
+import com.google.common.util.concurrent.ListenableFuture; // CameraX provider future
+
+// JAVA STANDARD IMPORTS
+import java.text.SimpleDateFormat; // For file names
+import java.util.Date; // For file names
+import java.util.Locale; // For file names
+import java.util.concurrent.Executor; // Callback thread
+
+/**
+ * IN-APP CAMERA - CameraX capture that keeps speech recognition running
+ *
+ * The external ACTION_IMAGE_CAPTURE / ACTION_VIDEO_CAPTURE path pauses this
+ * app, which stops the recognizer and costs seconds before the shutter fires.
+ * This controller binds a preview, a still capture and a video capture to the
+ * activity so "photo" fires immediately and "stop recording" can be heard while
+ * a video is being recorded.
+ *
+ * Video is recorded WITHOUT audio: the microphone stays with PocketSphinx so
+ * voice commands keep working during the recording.
+ *
+ * All callbacks are delivered on the main thread.
+ */
+final class InAppCameraController {
+
+    private static final String TAG = "InAppCamera_SLATE";
+
+    // MediaStore folder (API 29+) and file name pattern for captured media
+    private static final String MEDIA_RELATIVE_DIR = "ProjetoFinal";
+    private static final String FILE_NAME_PATTERN = "yyyyMMdd_HHmmss_SSS";
+
+    /**
+     * Capture results reported back to the activity (main thread)
+     */
+    interface Listener {
+        void onCameraReady();
+        void onCameraUnavailable(String reason);
+        void onPhotoSaved(Uri uri);
+        void onPhotoFailed(String reason);
+        void onRecordingStarted();
+        void onRecordingFinished(Uri uri, String errorOrNull);
+    }
+
+    private final Context context;
+    private final LifecycleOwner lifecycleOwner;
+    private final PreviewView previewView;
+    private final Listener listener;
+    private final Executor mainExecutor;
+
+    private ImageCapture imageCapture; // Null until bound
+    private VideoCapture<Recorder> videoCapture; // Null if the device can't bind video alongside stills
+    private Recording activeRecording; // Non-null while recording
+    private boolean isBinding = false;
+
+    InAppCameraController(Context context, LifecycleOwner lifecycleOwner, PreviewView previewView, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.lifecycleOwner = lifecycleOwner;
+        this.previewView = previewView;
+        this.listener = listener;
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+    }
+
+    /**
+     * BIND CAMERA
+     *
+     * Requires CAMERA permission. Safe to call more than once.
+     */
+    void bind() {
+        if (isBinding || imageCapture != null) return;
+        isBinding = true;
+
+        ListenableFuture<ProcessCameraProvider> providerFuture = ProcessCameraProvider.getInstance(context);
+        providerFuture.addListener(() -> {
+            isBinding = false;
+            try {
+                ProcessCameraProvider provider = providerFuture.get();
+                bindUseCases(provider);
+            } catch (Exception e) {
+                VLog.e(TAG, "Could not obtain camera provider: {}", e.getMessage(), e);
+                listener.onCameraUnavailable(e.getMessage());
+            }
+        }, mainExecutor);
+    }
+
+    private void bindUseCases(ProcessCameraProvider provider) {
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+        // Voice-to-shutter latency matters more than per-frame quality here
+        ImageCapture stillCapture = new ImageCapture.Builder()
+                .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                .build();
+
+        Recorder recorder = new Recorder.Builder()
+                .setQualitySelector(QualitySelector.from(Quality.HD, FallbackStrategy.lowerQualityOrHigherThan(Quality.SD)))
+                .build();
+        VideoCapture<Recorder> video = VideoCapture.withOutput(recorder);
+
+        provider.unbindAll();
+        try {
+            provider.bindToLifecycle(lifecycleOwner, CameraSelector.DEFAULT_BACK_CAMERA, preview, stillCapture, video);
+            videoCapture = video;
+        } catch (IllegalArgumentException e) {
+            // Some LIMITED devices can't run preview + still + video together; keep stills in-app
+            VLog.w(TAG, "Preview+still+video not supported together, binding without video: {}", e.getMessage());
+            try {
+                provider.unbindAll();
+                provider.bindToLifecycle(lifecycleOwner, CameraSelector.DEFAULT_BACK_CAMERA, preview, stillCapture);
+                videoCapture = null;
+            } catch (Exception inner) {
+                VLog.e(TAG, "Camera binding failed: {}", inner.getMessage(), inner);
+                listener.onCameraUnavailable(inner.getMessage());
+                return;
+            }
+        } catch (Exception e) {
+            VLog.e(TAG, "Camera binding failed: {}", e.getMessage(), e);
+            listener.onCameraUnavailable(e.getMessage());
+            return;
+        }
+
+        imageCapture = stillCapture;
+        previewView.setVisibility(View.VISIBLE);
+        VLog.i(TAG, "Camera bound (video in-app: {}).", videoCapture != null);
+        listener.onCameraReady();
+    }
+
+    boolean canTakePhoto() {
+        return imageCapture != null;
+    }
+
+    boolean canRecordVideo() {
+        return videoCapture != null;
+    }
+
+    boolean isRecording() {
+        return activeRecording != null;
+    }
+
+    /**
+     * CAPTURE A STILL NOW
+     */
+    void takePhoto() {
+        if (imageCapture == null) {
+            listener.onPhotoFailed("camera not bound");
+            return;
+        }
+
+        ImageCapture.OutputFileOptions options = new ImageCapture.OutputFileOptions.Builder(
+                context.getContentResolver(),
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                newMediaEntry("IMG_", "image/jpeg")).build();
+
+        imageCapture.takePicture(options, mainExecutor, new ImageCapture.OnImageSavedCallback() {
+            @Override
+            public void onImageSaved(ImageCapture.OutputFileResults results) {
+                VLog.i(TAG, "Photo saved: {}", results.getSavedUri());
+                listener.onPhotoSaved(results.getSavedUri());
+            }
+
+            @Override
+            public void onError(ImageCaptureException e) {
+                VLog.e(TAG, "Photo capture failed: {}", e.getMessage(), e);
+                listener.onPhotoFailed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * START RECORDING VIDEO (no audio - microphone stays with the recognizer)
+     */
+    void startRecording() {
+        if (videoCapture == null) {
+            listener.onRecordingFinished(null, "video not bound");
+            return;
+        }
+        if (activeRecording != null) {
+            VLog.d(TAG, "startRecording ignored: already recording.");
+            return;
+        }
+
+        MediaStoreOutputOptions options = new MediaStoreOutputOptions.Builder(
+                context.getContentResolver(), MediaStore.Video.Media.EXTERNAL_CONTENT_URI)
+                .setContentValues(newMediaEntry("VID_", "video/mp4"))
+                .build();
+
+        activeRecording = videoCapture.getOutput()
+                .prepareRecording(context, options)
+                .start(mainExecutor, event -> {
+                    if (event instanceof VideoRecordEvent.Start) {
+                        VLog.i(TAG, "Video recording started.");
+                        listener.onRecordingStarted();
+                    } else if (event instanceof VideoRecordEvent.Finalize) {
+                        VideoRecordEvent.Finalize finalize = (VideoRecordEvent.Finalize) event;
+                        activeRecording = null;
+                        if (finalize.hasError()) {
+                            VLog.e(TAG, "Video recording finished with error {}", finalize.getError());
+                            listener.onRecordingFinished(finalize.getOutputResults().getOutputUri(),
+                                    "error " + finalize.getError());
+                        } else {
+                            VLog.i(TAG, "Video saved: {}", finalize.getOutputResults().getOutputUri());
+                            listener.onRecordingFinished(finalize.getOutputResults().getOutputUri(), null);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * STOP RECORDING (result arrives via onRecordingFinished)
+     */
+    void stopRecording() {
+        if (activeRecording != null) {
+            activeRecording.stop();
+            // activeRecording is cleared by the Finalize event
+        }
+    }
+
+    private ContentValues newMediaEntry(String prefix, String mimeType) {
+        String name = prefix + new SimpleDateFormat(FILE_NAME_PATTERN, Locale.US).format(new Date());
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, name);
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            String base = mimeType.startsWith("image") ? "Pictures/" : "Movies/";
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, base + MEDIA_RELATIVE_DIR);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.projetofinal;
+
+/**
+ * LISTENING MODE POLICY - Picks the background duty cycle
+ *
+ * Full grammar decoding on every audio frame is the most responsive and the
+ * most expensive option. The background service trades responsiveness for
+ * battery according to:
+ * - Charging: nothing to save, listen continuously.
+ * - Low battery: only spot the wake phrase (keyword search is far cheaper
+ *   than the command grammar), then open a short command window.
+ * - Recent activity: the user is mid-session, keep continuous listening
+ *   while the battery allows it.
+ * - Long idle: fall back to the wake phrase.
+ * - Otherwise: short listen windows separated by pauses.
+ */
+final class ListeningModePolicy {
+
+    /**
+     * Background duty cycles, most to least expensive
+     */
+    enum Mode {
+        CONTINUOUS, // Grammar search all the time
+        WINDOWED, // Grammar search in short windows with pauses between them
+        WAKE_PHRASE // Keyword search for the wake phrase, grammar only after it
+    }
+
+    // ==================== POLICY SETTINGS ====================
+
+    // A command within this window counts as an active session
+    private static final long RECENT_ACTIVITY_MS = 2 * 60_000;
+
+    // No command for this long counts as idle
+    private static final long IDLE_MS = 15 * 60_000;
+
+    // Battery levels (percent)
+    private static final int HIGH_BATTERY_PERCENT = 50;
+    private static final int LOW_BATTERY_PERCENT = 20;
+
+    private ListeningModePolicy() {
+    }
+
+    /**
+     * MODE FOR THE CURRENT CONDITIONS
+     *
+     * @param batteryPercent    0-100
+     * @param charging          plugged in (any source)
+     * @param sinceLastActiveMs time since the last accepted command or wake phrase
+     * @param wakePhraseAvailable false if the bundle's dictionary can't spell the wake phrase
+     */
+    static Mode choose(int batteryPercent, boolean charging, long sinceLastActiveMs, boolean wakePhraseAvailable) {
+        Mode mode;
+        if (charging) {
+            mode = Mode.CONTINUOUS;
+        } else if (batteryPercent <= LOW_BATTERY_PERCENT) {
+            mode = Mode.WAKE_PHRASE;
+        } else if (sinceLastActiveMs < RECENT_ACTIVITY_MS && batteryPercent > HIGH_BATTERY_PERCENT) {
+            mode = Mode.CONTINUOUS;
+        } else if (sinceLastActiveMs > IDLE_MS) {
+            mode = Mode.WAKE_PHRASE;
+        } else {
+            mode = Mode.WINDOWED;
+        }
+        return mode == Mode.WAKE_PHRASE && !wakePhraseAvailable ? Mode.WINDOWED : mode;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // For asset access
+import android.content.res.AssetFileDescriptor; // In-place asset byte ranges
+import android.content.res.AssetManager; // In-place asset access
+
+// JAVA STANDARD IMPORTS
+import java.io.ByteArrayOutputStream; // Compressed asset fallback
+import java.io.File; // For synced file locations
+import java.io.FileInputStream; // In-place asset mapping
+import java.io.FileNotFoundException; // Asset stored compressed
+import java.io.FileOutputStream; // Trimmed dictionary
+import java.io.IOException; // For file error handling
+import java.io.InputStream; // Compressed asset fallback
+import java.io.OutputStream; // Trimmed dictionary
+import java.nio.ByteBuffer; // Asset contents
+import java.nio.channels.FileChannel; // In-place asset mapping
+import java.nio.charset.StandardCharsets; // Grammar text
+import java.util.ArrayList; // For bundle lists
+import java.util.Collections; // For read-only views
+import java.util.HashMap; // For item lists
+import java.util.HashSet; // Grammar vocabulary
+import java.util.List; // For bundle lists
+import java.util.Locale; // For language matching
+import java.util.Map; // For item lists
+import java.util.Set; // Grammar vocabulary
+import java.util.TreeMap; // For stable bundle ordering
+
+// POCKETSPHINX (SPEECH RECOGNITION) IMPORTS
+import edu.cmu.pocketsphinx.Assets; // Asset list + checksums + copying
+
+/**
+ * LOCALE ASSETS - Per-locale syncing of speech assets
+ *
+ * PocketSphinx's Assets.syncAssets() copies every file listed in assets.lst.
+ * With several languages that means copying models nobody uses, so this class
+ * syncs one bundle at a time, only when that bundle is first needed, and
+ * only the files whose checksum changed.
+ *
+ * Only the acoustic model is copied: the native side opens it by path. The
+ * dictionary and grammar are stored uncompressed in the APK (noCompress in
+ * build.gradle), so they are read in place by memory-mapping their byte
+ * range of the APK:
+ * - The grammar is handed to the decoder as a string.
+ * - The dictionary (the largest file) is scanned in place and only the
+ *   entries for the grammar's words are written out, a few KB instead of
+ *   the full pronunciation dictionary.
+ *
+ * All methods do file I/O: call them off the main thread.
+ */
+final class LocaleAssets {
+
+    private static final String TAG = "LocaleAssets_SLATE";
+
+    // Bundle used when nothing matches the requested language
+    static final String FALLBACK_TAG = "en-us";
+
+    // Bundle files that are not part of the acoustic model and never copied
+    private static final String README_FILE = "README";
+
+    // Separates the dictionary and grammar checksums in the synced list entry of a trimmed dictionary
+    private static final String HASH_SEPARATOR = "+";
+
+    // ==================== FOOTPRINT ESTIMATE ====================
+
+    // Search structures, feature buffers, lattice pools (per decoder)
+    private static final long DECODER_OVERHEAD_BYTES = 1024 * 1024;
+
+    // Loaded size of the text mdef (parsed into a compact binary table)
+    private static final float MDEF_MEMORY_RATIO = 0.5f;
+
+    // In-memory dictionary hash vs. its text size
+    private static final int DICTIONARY_MEMORY_FACTOR = 3;
+
+    private final Assets assets;
+    private final AssetManager assetManager;
+
+    LocaleAssets(Context context) throws IOException {
+        this.assets = new Assets(context);
+        this.assetManager = context.getAssets();
+    }
+
+    /**
+     * Root directory that synced bundles are copied into
+     */
+    File syncRoot() {
+        return assets.getExternalDir();
+    }
+
+    /**
+     * AVAILABLE BUNDLES
+     *
+     * A top-level folder of assets/sync is a bundle if assets.lst lists its
+     * mdef, its grammar and one dictionary.
+     */
+    List<LocaleBundle> discoverBundles() throws IOException {
+        Map<String, String> dictionaries = new TreeMap<>();
+        Map<String, Integer> requiredFiles = new HashMap<>();
+
+        for (String path : assets.getItems().keySet()) {
+            int slash = path.indexOf('/');
+            if (slash <= 0) continue;
+            String tag = path.substring(0, slash);
+            String name = path.substring(slash + 1);
+
+            if (name.equals(LocaleBundle.MODEL_DEFINITION_FILE) || name.equals(LocaleBundle.GRAMMAR_FILE)) {
+                Integer seen = requiredFiles.get(tag);
+                requiredFiles.put(tag, seen == null ? 1 : seen + 1);
+            } else if (name.endsWith(LocaleBundle.DICTIONARY_EXTENSION) && name.indexOf('/') < 0) {
+                dictionaries.put(tag, name);
+            }
+        }
+
+        List<LocaleBundle> bundles = new ArrayList<>();
+        for (Map.Entry<String, String> entry : dictionaries.entrySet()) {
+            Integer seen = requiredFiles.get(entry.getKey());
+            if (seen != null && seen == 2) {
+                bundles.add(new LocaleBundle(entry.getKey(), entry.getValue()));
+            } else {
+                VLog.w(TAG, "Ignoring incomplete bundle '{}' (missing mdef or grammar).", entry.getKey());
+            }
+        }
+        return Collections.unmodifiableList(bundles);
+    }
+
+    /**
+     * BEST BUNDLE FOR A LANGUAGE
+     *
+     * Exact tag match first ("pt-br"), then language only ("pt"), then the
+     * English fallback, then whatever is available.
+     */
+    static LocaleBundle pick(List<LocaleBundle> bundles, Locale preferred) {
+        if (bundles.isEmpty()) return null;
+
+        String exact = preferred.toLanguageTag().toLowerCase(Locale.US);
+        String language = preferred.getLanguage().toLowerCase(Locale.US);
+        LocaleBundle languageMatch = null;
+        LocaleBundle fallback = null;
+
+        for (LocaleBundle bundle : bundles) {
+            if (bundle.tag.equals(exact)) return bundle;
+            if (languageMatch == null && bundle.toLocale().getLanguage().equals(language)) languageMatch = bundle;
+            if (bundle.tag.equals(FALLBACK_TAG)) fallback = bundle;
+        }
+        if (languageMatch != null) return languageMatch;
+        return fallback != null ? fallback : bundles.get(0);
+    }
+
+    /**
+     * SYNC ONE BUNDLE
+     *
+     * Copies the bundle's changed acoustic model files to app storage and
+     * rewrites its trimmed dictionary if the dictionary or grammar changed,
+     * recording checksums. Other bundles' entries in the synced list are
+     * preserved.
+     *
+     * @param extraWords words needed besides the grammar's (e.g. the wake phrase)
+     * @return the sync root (bundle files live under syncRoot()/tag)
+     */
+    File sync(LocaleBundle bundle, String... extraWords) throws IOException {
+        Map<String, String> items = assets.getItems();
+        Map<String, String> synced = new HashMap<>(assets.getExternalItems());
+        String prefix = bundle.assetPrefix();
+        String dictionaryPath = prefix + bundle.dictionaryName;
+        String grammarPath = prefix + LocaleBundle.GRAMMAR_FILE;
+        int copied = 0;
+        boolean isListChanged = false;
+
+        for (Map.Entry<String, String> item : items.entrySet()) {
+            String path = item.getKey();
+            if (!path.startsWith(prefix) || path.equals(dictionaryPath) || path.equals(grammarPath)
+                    || path.equals(prefix + README_FILE)) continue;
+
+            String hash = item.getValue();
+            if (hash.equals(synced.get(path)) && new File(syncRoot(), path).exists()) continue;
+
+            assets.copy(path);
+            synced.put(path, hash);
+            copied++;
+        }
+
+        // Copies left by builds that synced the whole bundle
+        if (synced.remove(grammarPath) != null) {
+            new File(syncRoot(), grammarPath).delete();
+            isListChanged = true;
+        }
+
+        // Trimmed dictionary: depends on the full dictionary, the grammar and the extra words
+        String trimmedHash = items.get(dictionaryPath) + HASH_SEPARATOR + items.get(grammarPath)
+                + HASH_SEPARATOR + Integer.toHexString(String.join(" ", extraWords).hashCode());
+        File trimmed = bundle.dictionary(syncRoot());
+        if (!trimmedHash.equals(synced.get(dictionaryPath)) || !trimmed.exists()) {
+            writeTrimmedDictionary(bundle, trimmed, extraWords);
+            synced.put(dictionaryPath, trimmedHash);
+            isListChanged = true;
+        }
+
+        if (copied > 0 || isListChanged) {
+            assets.updateItemList(synced);
+        }
+        VLog.i(TAG, "Bundle '{}' synced ({} model file(s) copied).", bundle.tag, copied);
+        return syncRoot();
+    }
+
+    /**
+     * BUNDLE GRAMMAR, read in place from the APK
+     */
+    String readGrammar(LocaleBundle bundle) throws IOException {
+        ByteBuffer bytes = open(bundle.assetPrefix() + LocaleBundle.GRAMMAR_FILE);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    /**
+     * ASSET CONTENTS WITHOUT COPYING
+     *
+     * An uncompressed asset is a plain byte range of the APK, so it is
+     * mapped read-only. A compressed one (openFd refuses those) is streamed
+     * into memory instead.
+     *
+     * @param path relative to assets/sync
+     */
+    private ByteBuffer open(String path) throws IOException {
+        String assetPath = Assets.SYNC_DIR + "/" + path;
+        try (AssetFileDescriptor descriptor = assetManager.openFd(assetPath);
+             FileInputStream in = new FileInputStream(descriptor.getFileDescriptor())) {
+            // The mapping stays valid after the channel is closed
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength());
+        } catch (FileNotFoundException e) {
+            VLog.w(TAG, "Asset '{}' is compressed in the APK (check noCompress); reading it through a stream.", assetPath);
+        }
+        try (InputStream in = assetManager.open(assetPath)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    /**
+     * DICTIONARY WITH ONLY THE WORDS THE DECODER CAN HEAR
+     *
+     * Scans the mapped dictionary line by line and keeps the entries (and
+     * their alternative pronunciations, "word(2)") for the grammar's words.
+     */
+    private void writeTrimmedDictionary(LocaleBundle bundle, File target, String... extraWords) throws IOException {
+        Set<String> vocabulary = grammarVocabulary(readGrammar(bundle));
+        for (String phrase : extraWords) {
+            Collections.addAll(vocabulary, phrase.toLowerCase(Locale.US).split("\\s+"));
+        }
+
+        ByteBuffer dictionary = open(bundle.assetPrefix() + bundle.dictionaryName);
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent.getAbsolutePath());
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        Set<String> found = new HashSet<>();
+        int entries = 0;
+
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] line = new byte[256];
+            int limit = dictionary.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = start;
+                while (end < limit && dictionary.get(end) != '\n') end++;
+
+                // Word = up to the first space/tab, minus any "(n)" variant suffix
+                int wordEnd = start;
+                while (wordEnd < end && dictionary.get(wordEnd) != ' ' && dictionary.get(wordEnd) != '\t') wordEnd++;
+                int baseEnd = wordEnd;
+                if (baseEnd > start && dictionary.get(baseEnd - 1) == ')') {
+                    int paren = baseEnd - 1;
+                    while (paren > start && dictionary.get(paren) != '(') paren--;
+                    if (paren > start) baseEnd = paren;
+                }
+
+                int length = end - start;
+                if (baseEnd > start && length <= line.length) {
+                    for (int i = 0; i < length; i++) {
+                        line[i] = dictionary.get(start + i);
+                    }
+                    String word = new String(line, 0, baseEnd - start, StandardCharsets.UTF_8);
+                    if (vocabulary.contains(word)) {
+                        out.write(line, 0, length);
+                        out.write('\n');
+                        found.add(word);
+                        entries++;
+                    }
+                }
+                start = end + 1;
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + target.getAbsolutePath());
+        }
+
+        vocabulary.removeAll(found);
+        if (!vocabulary.isEmpty()) {
+            VLog.w(TAG, "Bundle '{}': no pronunciation for {}", bundle.tag, vocabulary);
+        }
+        VLog.i(TAG, "Bundle '{}': trimmed dictionary written ({} entries).", bundle.tag, entries);
+    }
+
+    /**
+     * EVERY WORD A JSGF GRAMMAR CAN PRODUCE
+     *
+     * Rule bodies only, without comments, rule references, tags, weights and
+     * operators.
+     */
+    static Set<String> grammarVocabulary(String grammar) {
+        String text = grammar.replaceAll("(?s)/\\*.*?\\*/", " ").replaceAll("//[^\\n]*", " ");
+        Set<String> words = new HashSet<>();
+        for (String statement : text.split(";")) {
+            int equals = statement.indexOf('=');
+            if (equals < 0) continue;
+            String body = statement.substring(equals + 1)
+                    .replaceAll("<[^>]*>", " ") // Rule references
+                    .replaceAll("\\{[^}]*\\}", " ") // Tags
+                    .replaceAll("/[^/]*/", " ") // Weights
+                    .replaceAll("[|()\\[\\]*+]", " ");
+            for (String word : body.trim().split("\\s+")) {
+                if (!word.isEmpty()) words.add(word.toLowerCase(Locale.US));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * APPROXIMATE MEMORY COST OF A BUILT DECODER
+     *
+     * Means, variances, sendump and the transition matrices are loaded
+     * about as large as their files. The text mdef is parsed into a much
+     * smaller binary table. The (trimmed) dictionary's in-memory hash is a
+     * few times its text size. Search structures and buffers add a fixed
+     * amount per decoder.
+     */
+    static long estimateFootprintBytes(LocaleBundle bundle, File syncRoot) {
+        long bytes = DECODER_OVERHEAD_BYTES;
+        File[] files = bundle.modelDir(syncRoot).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                long length = file.length();
+                if (file.getName().endsWith(LocaleBundle.DICTIONARY_EXTENSION)) {
+                    bytes += length * DICTIONARY_MEMORY_FACTOR;
+                } else if (file.getName().equals(LocaleBundle.MODEL_DEFINITION_FILE)) {
+                    bytes += (long) (length * MDEF_MEMORY_RATIO);
+                } else {
+                    bytes += length;
+                }
+            }
+        }
+        return bytes;
+    }
+}
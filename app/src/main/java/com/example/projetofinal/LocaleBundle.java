@@ -0,0 +1,64 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // For bundle file locations
+import java.util.Locale; // For TTS language
+
+/**
+ * LOCALE BUNDLE - One language's speech assets under assets/sync/<tag>/
+ *
+ * A bundle is a directory named after its locale tag (e.g. "en-us") holding:
+ * - The acoustic model files (mdef, means, variances, ...)
+ * - A pronunciation dictionary (*.dict); the synced copy is trimmed to the
+ *   grammar's words
+ * - The command grammar (commands.gram), read in place from the APK
+ *
+ * The acoustic model directory IS the bundle directory, so adding a language
+ * is just dropping a new folder into assets/sync and listing it in assets.lst.
+ */
+final class LocaleBundle {
+
+    // Grammar file name inside every bundle
+    static final String GRAMMAR_FILE = "commands.gram";
+
+    // Extension of the pronunciation dictionary inside a bundle
+    static final String DICTIONARY_EXTENSION = ".dict";
+
+    // File every acoustic model must contain (used to validate a bundle)
+    static final String MODEL_DEFINITION_FILE = "mdef";
+
+    final String tag; // Directory name, e.g. "en-us"
+    final String dictionaryName; // e.g. "cmudict-en-us.dict"
+
+    LocaleBundle(String tag, String dictionaryName) {
+        this.tag = tag;
+        this.dictionaryName = dictionaryName;
+    }
+
+    /**
+     * Locale for TTS and matching against the system language
+     */
+    Locale toLocale() {
+        return Locale.forLanguageTag(tag);
+    }
+
+    File modelDir(File syncRoot) {
+        return new File(syncRoot, tag);
+    }
+
+    File dictionary(File syncRoot) {
+        return new File(modelDir(syncRoot), dictionaryName);
+    }
+
+    /**
+     * Asset path prefix of every file in this bundle (relative to assets/sync)
+     */
+    String assetPrefix() {
+        return tag + "/";
+    }
+
+    @Override
+    public String toString() {
+        return tag;
+    }
+}
@@ -2,20 +2,25 @@ package com.example.projetofinal;
 
 // ANDROID CORE IMPORTS
 import android.Manifest; // For permission constants
-import android.content.Intent; // For launching other apps (camera, etc.)
+import android.content.ComponentCallbacks2; // For memory pressure levels
+import android.content.Intent; // Commands handed over by the background service
 import android.content.pm.PackageManager; // For checking app permissions
+import android.net.Uri; // Where in-app captures were saved
+import android.os.Build; // For API level checks
 import android.os.Bundle; // For saving activity state
 import android.os.Handler; // For scheduling code on main thread
 import android.os.Looper; // For main thread reference
+import android.os.SystemClock; // For recovery timing
 import android.provider.MediaStore; // For camera/video intents
 import android.speech.tts.TextToSpeech; // For voice feedback
-import android.util.Log; // For logging debug info
 import android.widget.TextView; // For displaying status
 import android.widget.Toast; // For user notifications
 
 // ANDROIDX (SUPPORT LIBRARY) IMPORTS
 import androidx.annotation.NonNull; // For null parameter checks
 import androidx.appcompat.app.AppCompatActivity; // Base activity class
+import androidx.appcompat.widget.SwitchCompat; // Background listening toggle
+import androidx.camera.view.PreviewView; // In-app camera viewfinder
 import androidx.core.app.ActivityCompat; // For permission handling
 import androidx.core.content.ContextCompat; // For permission checking
 import androidx.lifecycle.Lifecycle; // For activity state management
@@ -23,22 +28,24 @@ import androidx.lifecycle.Lifecycle; // For activity state management
 // JAVA STANDARD IMPORTS
 import java.io.File; // For file operations
 import java.io.IOException; // For file error handling
+import java.util.ArrayList; // For building permission requests
+import java.util.Arrays; // For splitting pronunciations
+import java.util.Collections; // Single-command batches
+import java.util.List; // For building permission requests
 import java.util.Locale; // For language settings
 import java.util.UUID; // For generating unique IDs
 
 // POCKETSPHINX (SPEECH RECOGNITION) IMPORTS
-import edu.cmu.pocketsphinx.Assets; // For managing audio model files
 import edu.cmu.pocketsphinx.Hypothesis; // For speech recognition results
 import edu.cmu.pocketsphinx.RecognitionListener; // For speech events
 import edu.cmu.pocketsphinx.SpeechRecognizer; // Main recognition engine
-import edu.cmu.pocketsphinx.SpeechRecognizerSetup; // For configuring recognizer
 
 /**
  * MAIN ACTIVITY - Voice-Controlled Camera/Video App
  *
  * This app uses offline speech recognition (PocketSphinx) to control:
- * - Camera photos
- * - Video recording
+ * - Camera photos (in-app CameraX capture, external camera app as fallback)
+ * - Video recording (in-app, stopped by voice; external app as fallback)
  * - Basic messaging (placeholder)
  *
  * Key features:
@@ -56,58 +63,92 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     private static final String TAG = "MainActivity_SLATE";
 
     // Name for the grammar search (matches the .gram file)
-    private static final String GRAMMAR_SEARCH_NAME = "commands";
+    private static final String GRAMMAR_SEARCH_NAME = RecognizerFactory.GRAMMAR_SEARCH_NAME;
 
     // Permission request code (must be unique per permission request)
     private static final int PERMISSIONS_REQUEST_RECORD_AUDIO = 1;
+    private static final int PERMISSIONS_REQUEST_CAMERA = 2;
+    private static final int PERMISSIONS_REQUEST_NOTIFICATIONS = 3;
 
     // ==================== TIMING & COOLDOWN SETTINGS ====================
 
-    // Prevents processing the same command multiple times in quick succession
-    private static final long COMMAND_PROCESSING_COOLDOWN_MS = 2500;
+    // Ignores a repeat of the same intent (e.g. "photo" then "take picture") within this window
+    private static final long COMMAND_DEBOUNCE_MS = 800;
 
-    // Maximum number of times to retry after errors
-    private static final int MAX_ERROR_RESTART_ATTEMPTS = 3;
+    // Maximum number of commands held while an action (camera/video) is pending
+    private static final int MAX_QUEUED_COMMANDS = 4;
 
-    // Initial delay before retrying after errors (in milliseconds)
-    private static final long INITIAL_ERROR_RESTART_DELAY_MS = 1000;
-
-    // Maximum delay between retries (prevents infinite rapid retries)
-    private static final long MAX_ERROR_RESTART_DELAY_MS = 8000;
-
-    // Delays for different scenarios
-    private static final long ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS = 500;
+    // Delays after a normal result (error recovery timing lives in RecoveryScheduler)
+    private static final long ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS = 500; // Lets TTS feedback start first
     private static final long ON_RESULT_EMPTY_NULL_HYPOTHESIS_RESTART_DELAY_MS = 1500;
-    private static final long ON_TIMEOUT_RESTART_DELAY_MS = 500;
 
     // Watchdog timeout - maximum time to wait for final recognition result
     private static final long FINAL_RESULT_TIMEOUT_MS = 7000;
 
+    // ==================== UTTERANCE AUDIO SETTINGS ====================
+
+    // Shorter rejected utterances (0.3 s at 16 kHz) are not worth a phonetic re-decode
+    private static final int PHONETIC_FALLBACK_MIN_SAMPLES = 4800;
+
+    // ==================== SPEAKER ADAPTATION SETTINGS ====================
+
+    // Only accepted commands scoring above this are used to train the MLLR transform
+    private static final int ADAPTATION_MIN_SCORE = -3000;
+
     // ==================== UI COMPONENTS ====================
     private TextView statusText; // Displays current app status
+    private SwitchCompat backgroundListeningToggle; // Hands the microphone to VoiceListeningService
+    private String pendingServiceCommand; // Service command waiting for the activity to resume
+
+    // ==================== IN-APP CAMERA COMPONENTS ====================
+    private InAppCameraController cameraController; // CameraX capture; recognition keeps running
+
+    // ==================== ACTION COMPONENTS ====================
+    private ActionExecutor actionExecutor; // Intent registry + pre-resolved external camera targets
 
     // ==================== SPEECH RECOGNITION COMPONENTS ====================
-    private SpeechRecognizer recognizer; // PocketSphinx recognition engine
+    private SpeechRecognizer recognizer; // PocketSphinx recognition engine (owned by DecoderCache)
+    private volatile LocaleBundle activeBundle; // Language currently recognized (null until first init)
+    private volatile List<LocaleBundle> availableBundles; // Languages found under assets/sync
     private boolean isRecognizerReady = false; // True when recognizer is configured
     private boolean isRecognizerInitializing = false; // True during initialization
+    private AcousticStateStore acousticState; // Cepstral mean + noise floor per route, across sessions
+    private SpeakerAdaptation speakerAdaptation; // Training corpus + per-profile MLLR transforms
+    private volatile File activeModelDir; // Synced acoustic model of the active bundle
+    private GrammarPriors grammarPriors; // Per-phrase usage counts -> grammar weights
 
     // ==================== TEXT-TO-SPEECH COMPONENTS ====================
     private TextToSpeech tts; // For voice feedback
     private boolean isTtsReady = false; // True when TTS is initialized
 
     // ==================== COMMAND PROCESSING VARIABLES ====================
-    private String lastProcessedFinalCommand = ""; // Last processed command
-    private long lastProcessedFinalCommandTime = 0; // When last command was processed
+    private final CommandQueue commandQueue = new CommandQueue(MAX_QUEUED_COMMANDS, COMMAND_DEBOUNCE_MS); // Held commands + per-intent debounce
     private boolean isActionPending = false; // True when camera/video is active
+    private boolean isDrainingCommandQueue = false; // True while held commands are being executed
+    private volatile PhoneticMatcher phoneticMatcher; // Phone index of the grammar phrases (built on first fallback)
+    private volatile SpeechRecognizer phoneticMatcherOwner; // Recognizer whose dictionary built phoneticMatcher
 
     // ==================== ERROR HANDLING VARIABLES ====================
-    private int errorRestartAttempts = 0; // Count of consecutive errors
+    private final RecoveryScheduler recoveryScheduler = new RecoveryScheduler(); // Strategy + backoff + health budget
+    private boolean isDegradedAnnounced = false; // Spoken "having trouble" once per degraded period
     private Handler mainHandler; // For scheduling tasks on main thread
 
     // ==================== WATCHDOG TIMER VARIABLES ====================
     private Runnable finalResultTimeoutRunnable; // Timeout handler
     private boolean expectingFinalResult = false; // True when waiting for final result
 
+    // ==================== ENDPOINTING VARIABLES ====================
+    private final Runnable endpointRunnable = this::onEndpoint; // Finalizes after the silence window
+    private String lastPartialHypothesis = null; // Latest partial of the current utterance
+    private long endOfSpeechAtMs = 0; // When the current silence window started
+    private long endpointWindowMs = 0; // Silence window chosen for the current utterance
+
+    // ==================== UTTERANCE AUDIO VARIABLES ====================
+    private DecoderWorker decoderWorker; // All off-main decoder work (builds, cache changes, audio copy, re-decodes)
+    private int startToken = 0; // Only the latest deferred start may run
+    private long listeningStartedAtMs = -1; // Start of the current listening session
+    private long speechStartedAtMs = -1; // First speech of the current session (-1 = none yet)
+
     /**
      * ACTIVITY CREATION - Main entry point
      *
@@ -127,15 +168,52 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         // Find the status text view from the layout
         statusText = findViewById(R.id.statusText);
 
+        // Long-press cycles through the installed speech languages
+        statusText.setOnLongClickListener(v -> {
+            cycleLocale();
+            return true;
+        });
+
+        // Background listening: the service owns the recognizer while it runs
+        backgroundListeningToggle = findViewById(R.id.backgroundListeningToggle);
+        backgroundListeningToggle.setChecked(VoiceListeningService.isRunning());
+        backgroundListeningToggle.setOnCheckedChangeListener((button, isChecked) -> {
+            if (isChecked) {
+                startBackgroundListening();
+            } else {
+                VoiceListeningService.stop(this);
+            }
+        });
+        VoiceListeningService.setListener(serviceListener);
+        takeServiceCommand(getIntent());
+
         // Show initial status message
-        updateStatus(getString(R.string.status_initializing));
+        updateStatus(getString(VoiceListeningService.isRunning()
+                ? R.string.status_background_listening : R.string.status_initializing));
 
         // Create handler for scheduling tasks on the main UI thread
         mainHandler = new Handler(Looper.getMainLooper());
+        decoderWorker = DecoderWorker.getInstance();
+
+        // Persisted CMN / noise state (restored into each new decoder)
+        acousticState = AcousticStateStore.getInstance(this);
+        grammarPriors = GrammarPriors.getInstance(this);
+
+        // MLLR adaptation (collected here, estimated by a background job)
+        speakerAdaptation = SpeakerAdaptation.getInstance(this);
 
         // Initialize Text-to-Speech engine
         tts = new TextToSpeech(this, this);
 
+        // In-app camera (bound once CAMERA permission is available)
+        PreviewView previewView = findViewById(R.id.previewView);
+        cameraController = new InAppCameraController(this, this, previewView, cameraListener);
+
+        // Actions + external capture targets (resolved now, off the main thread)
+        actionExecutor = new ActionExecutor(this);
+        registerActions();
+        actionExecutor.start();
+
         // Check if we already have microphone permission
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
                 != PackageManager.PERMISSION_GRANTED) {
@@ -144,17 +222,21 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                     new String[]{Manifest.permission.RECORD_AUDIO}, PERMISSIONS_REQUEST_RECORD_AUDIO);
         } else {
             // Permission already granted - initialize recognizer
-            Log.i(TAG, "Mic permission already granted on create.");
+            VLog.i(TAG, "Mic permission already granted on create.");
             initializeRecognizer();
+            requestCameraPermissionsOrBind();
         }
 
         // Set up watchdog timer for speech recognition timeouts
         finalResultTimeoutRunnable = () -> {
             if (expectingFinalResult) {
-                Log.e(TAG, "WATCHDOG TIMEOUT: Sphinx did NOT call onResult() or onError() within " +
-                        FINAL_RESULT_TIMEOUT_MS + "ms after onEndOfSpeech. Likely Pocketsphinx issue.");
+                VLog.e(TAG, "WATCHDOG TIMEOUT: Sphinx did NOT call onResult() or onError() within {}ms after onEndOfSpeech. Likely Pocketsphinx issue.", FINAL_RESULT_TIMEOUT_MS);
                 expectingFinalResult = false; // Reset flag first
-                handleRecognitionErrorOrWatchdogTimeout("watchdog_timeout");
+                // stop() finalizes the utterance and posts onResult; only a recognizer
+                // with no running utterance is really stalled
+                if (!finalizeUtterance()) {
+                    handleRecognitionFailure(RecoveryScheduler.FailureClass.WATCHDOG_STALL, "watchdog_timeout");
+                }
             }
         };
     }
@@ -172,82 +254,125 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         if (requestCode == PERMISSIONS_REQUEST_RECORD_AUDIO) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                 // User granted permission - initialize recognizer
-                Log.i(TAG, "Mic permission GRANTED via dialog.");
+                VLog.i(TAG, "Mic permission GRANTED via dialog.");
                 initializeRecognizer();
             } else {
                 // User denied permission - show error
-                Log.e(TAG, "Mic permission DENIED via dialog.");
+                VLog.e(TAG, "Mic permission DENIED via dialog.");
                 updateStatus(getString(R.string.status_permission_denied));
                 Toast.makeText(this, getString(R.string.toast_permission_required), Toast.LENGTH_LONG).show();
             }
+            // Camera is asked for after the mic so the dialogs don't stack up front
+            requestCameraPermissionsOrBind();
+        } else if (requestCode == PERMISSIONS_REQUEST_NOTIFICATIONS) {
+            // The service runs either way; without this its notification is just hidden
+            VLog.i(TAG, "Notification permission {} via dialog.", (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED ? "GRANTED" : "DENIED"));
+        } else if (requestCode == PERMISSIONS_REQUEST_CAMERA) {
+            if (hasCameraPermissions()) {
+                VLog.i(TAG, "Camera permission GRANTED via dialog. Binding in-app camera.");
+                cameraController.bind();
+            } else {
+                // External camera app remains available as fallback
+                VLog.w(TAG, "Camera permission DENIED via dialog. Using external camera app for captures.");
+            }
+        }
+    }
+
+    /**
+     * IN-APP CAMERA PERMISSIONS
+     *
+     * CAMERA is always needed; legacy storage write is needed below Android 10
+     * to save captures to the gallery.
+     */
+    private String[] cameraPermissions() {
+        List<String> permissions = new ArrayList<>();
+        permissions.add(Manifest.permission.CAMERA);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            permissions.add(Manifest.permission.WRITE_EXTERNAL_STORAGE);
+        }
+        return permissions.toArray(new String[0]);
+    }
+
+    private boolean hasCameraPermissions() {
+        for (String permission : cameraPermissions()) {
+            if (ContextCompat.checkSelfPermission(this, permission) != PackageManager.PERMISSION_GRANTED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void requestCameraPermissionsOrBind() {
+        if (hasCameraPermissions()) {
+            cameraController.bind();
+        } else {
+            ActivityCompat.requestPermissions(this, cameraPermissions(), PERMISSIONS_REQUEST_CAMERA);
         }
     }
 
     /**
      * INITIALIZE SPEECH RECOGNIZER
      *
-     * Sets up PocketSphinx engine with:
-     * 1. Acoustic model (how speech sounds are recognized)
-     * 2. Dictionary (how words are pronounced)
-     * 3. Grammar file (what commands to listen for)
+     * Picks the speech bundle for the current language and gets its
+     * recognizer from the process-wide DecoderCache (built on first use, see
+     * RecognizerFactory). Only the chosen bundle's assets are synced.
      *
-     * Runs on background thread to avoid blocking UI
+     * Runs on the decoder worker: slow file work stays off the UI thread,
+     * and the build / cache changes never overlap other decoder work.
      */
     private void initializeRecognizer() {
+        // The background service owns the microphone; picked up again in onServiceStopped
+        if (VoiceListeningService.isRunning()) {
+            VLog.d(TAG, "Background listening active. Skipping recognizer initialization.");
+            return;
+        }
+
         // Prevent multiple simultaneous initializations
         synchronized (this) {
             if (isRecognizerReady || isRecognizerInitializing) {
-                Log.d(TAG, "Recognizer initialization already complete or in progress. Skipping.");
+                VLog.d(TAG, "Recognizer initialization already complete or in progress. Skipping.");
                 return;
             }
             isRecognizerInitializing = true;
         }
 
-        Log.i(TAG, "Initializing Recognizer...");
+        VLog.i(TAG, "Initializing Recognizer...");
         updateStatus(getString(R.string.status_setup_recognizer));
 
-        // Run initialization on background thread (file operations can be slow)
-        new Thread(() -> {
+        // Run initialization on the decoder worker (file operations can be slow)
+        decoderWorker.run(() -> {
             try {
-                // Access app's asset files
-                Assets assets = new Assets(MainActivity.this);
-
-                // Copy asset files from APK to internal storage (where PocketSphinx can access them)
-                File assetDir = assets.syncAssets();
-                Log.i(TAG, "Assets synced to: " + assetDir.getAbsolutePath());
-
-                // Define paths to model files
-                File acousticModelDir = new File(assetDir, "en-us"); // Sound recognition model
-                File dictionaryFile = new File(assetDir, "cmudict-en-us.dict"); // Word pronunciations
-                File grammarFile = new File(assetDir, "commands.gram"); // Command definitions
-
-                // Verify all required files exist
-                if (!acousticModelDir.exists() || !acousticModelDir.isDirectory() || !new File(acousticModelDir, "mdef").exists()) {
-                    throw new IOException("Acoustic model 'en-us' dir or critical 'mdef' file missing/invalid at " + acousticModelDir.getAbsolutePath());
-                }
-                if (!dictionaryFile.exists()) {
-                    throw new IOException("Dictionary file missing: " + dictionaryFile.getAbsolutePath());
-                }
-                if (!grammarFile.exists()) {
-                    throw new IOException("Grammar file 'commands.gram' missing: " + grammarFile.getAbsolutePath());
+                // Access app's asset files (one bundle per locale under assets/sync)
+                LocaleAssets localeAssets = new LocaleAssets(MainActivity.this);
+
+                LocaleBundle bundle = activeBundle;
+                if (bundle == null) {
+                    availableBundles = localeAssets.discoverBundles();
+                    bundle = LocaleAssets.pick(availableBundles, Locale.getDefault());
+                    if (bundle == null) {
+                        throw new IOException("No speech bundles found under assets/sync");
+                    }
+                    activeBundle = bundle;
+                    mainHandler.post(this::applyTtsLanguage);
                 }
+                VLog.i(TAG, "Using speech bundle '{}'.", bundle.tag);
 
-                // Configure PocketSphinx with our model files
-                recognizer = SpeechRecognizerSetup.defaultSetup()
-                        .setAcousticModel(acousticModelDir)
-                        .setDictionary(dictionaryFile)
-                        .getRecognizer();
+                // Warm recognizer from the cache, or sync + build this locale only
+                SpeechRecognizer localRecognizer = RecognizerFactory.acquire(MainActivity.this, localeAssets, bundle);
 
-                if (recognizer == null) {
-                    throw new RuntimeException("SpeechRecognizerSetup.getRecognizer() returned null. Setup failed.");
+                // Background listening started meanwhile: the shared recognizer is the service's now
+                if (VoiceListeningService.isRunning()) {
+                    VLog.i(TAG, "Background listening started during initialization. Not attaching.");
+                    synchronized (MainActivity.this) {
+                        isRecognizerInitializing = false;
+                    }
+                    return;
                 }
 
                 // Set this activity to receive recognition events
-                recognizer.addListener(this);
-
-                // Load our command grammar file
-                recognizer.addGrammarSearch(GRAMMAR_SEARCH_NAME, grammarFile);
-                Log.i(TAG, "Grammar search '" + GRAMMAR_SEARCH_NAME + "' added.");
+                localRecognizer.addListener(this);
+                recognizer = localRecognizer;
+                activeModelDir = bundle.modelDir(localeAssets.syncRoot());
 
                 // Mark initialization as complete
                 synchronized (MainActivity.this) {
@@ -255,37 +380,84 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                     isRecognizerInitializing = false;
                 }
 
-                // Reset error counter on successful initialization
-                errorRestartAttempts = 0;
-                Log.i(TAG, "Recognizer initialization successful.");
+                VLog.i(TAG, "Recognizer initialization successful.");
 
                 // Start listening if activity is active and no actions pending
                 if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED) && !isActionPending) {
                     mainHandler.post(this::startRecognitionSafely);
                 } else {
-                    Log.i(TAG, "Recognizer initialized, but activity not resumed or action pending. Listening will start via onResume if appropriate.");
+                    VLog.i(TAG, "Recognizer initialized, but activity not resumed or action pending. Listening will start via onResume if appropriate.");
                 }
 
             } catch (IOException e) {
                 // Handle file access errors
-                Log.e(TAG, "Recognizer initialization failed (IOException): " + e.getMessage(), e);
-                handleRecognitionErrorOrWatchdogTimeout("init_io_exception");
+                VLog.e(TAG, "Recognizer initialization failed (IOException): {}", e.getMessage(), e);
                 updateStatusOnUiThread(getString(R.string.status_error_recognizer_io, e.getMessage()));
                 synchronized (MainActivity.this) {
                     isRecognizerReady = false;
                     isRecognizerInitializing = false;
                 }
+                mainHandler.post(() -> handleRecognitionFailure(RecoveryScheduler.FailureClass.INIT_FAILURE, "init_io_exception"));
             } catch (Exception e) {
                 // Handle any other unexpected errors
-                Log.e(TAG, "Unexpected error during recognizer initialization: " + e.getMessage(), e);
-                handleRecognitionErrorOrWatchdogTimeout("init_exception");
+                VLog.e(TAG, "Unexpected error during recognizer initialization: {}", e.getMessage(), e);
                 updateStatusOnUiThread(getString(R.string.status_error_recognizer_unexpected));
                 synchronized (MainActivity.this) {
                     isRecognizerReady = false;
                     isRecognizerInitializing = false;
                 }
+                mainHandler.post(() -> handleRecognitionFailure(RecoveryScheduler.FailureClass.INIT_FAILURE, "init_exception"));
             }
-        }).start();
+        });
+    }
+
+    /**
+     * SWITCH SPEECH LANGUAGE
+     *
+     * Detaches from the current recognizer (it stays warm in the cache) and
+     * initializes the given bundle. Instant when that bundle is still cached.
+     */
+    private void switchLocale(LocaleBundle bundle) {
+        if (bundle == null || bundle == activeBundle || isRecognizerInitializing || isActionPending) return;
+
+        VLog.i(TAG, "Switching speech bundle {} -> {}", activeBundle, bundle.tag);
+        stopRecognition();
+        if (recognizer != null) {
+            recognizer.removeListener(this);
+            recognizer = null;
+        }
+        synchronized (this) {
+            isRecognizerReady = false;
+        }
+        activeBundle = bundle;
+        applyTtsLanguage();
+        updateStatus(getString(R.string.status_switching_language, bundle.tag));
+        initializeRecognizer();
+    }
+
+    /**
+     * NEXT AVAILABLE LANGUAGE (long-press on the status text)
+     */
+    private void cycleLocale() {
+        List<LocaleBundle> bundles = availableBundles;
+        if (bundles == null || bundles.size() < 2 || activeBundle == null) {
+            VLog.d(TAG, "cycleLocale: only one speech bundle available.");
+            return;
+        }
+        int index = bundles.indexOf(activeBundle);
+        switchLocale(bundles.get((index + 1) % bundles.size()));
+    }
+
+    /**
+     * TTS SPEAKS THE ACTIVE BUNDLE'S LANGUAGE
+     */
+    private void applyTtsLanguage() {
+        if (tts == null || !isTtsReady) return;
+        Locale locale = activeBundle != null ? activeBundle.toLocale() : Locale.US;
+        int result = tts.setLanguage(locale);
+        if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
+            VLog.w(TAG, "TTS language {} not available; keeping previous voice.", locale);
+        }
     }
 
     /**
@@ -300,24 +472,41 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     private void startRecognitionSafely() {
         // Don't start if activity is not in foreground
         if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-            Log.w(TAG, "startRecognitionSafely: Activity is not resumed. Aborting.");
+            VLog.w(TAG, "startRecognitionSafely: Activity is not resumed. Aborting.");
             return;
         }
 
         // Don't start if camera/video is active
         if (isActionPending) {
-            Log.w(TAG, "startRecognitionSafely: Action is pending. Aborting start.");
+            VLog.w(TAG, "startRecognitionSafely: Action is pending. Aborting start.");
+            return;
+        }
+
+        // Don't start while the background service is listening
+        if (VoiceListeningService.isRunning()) {
+            VLog.d(TAG, "startRecognitionSafely: Background listening active. Not starting.");
+            updateStatus(getString(R.string.status_background_listening));
+            return;
+        }
+
+        // Decoder work (audio copy, phonetic re-decode, reset) still holds the decoder: start once it is done
+        if (decoderWorker.isBusy()) {
+            final int token = ++startToken;
+            VLog.d(TAG, "startRecognitionSafely: Decoder busy. Starting once it is idle.");
+            decoderWorker.whenIdle(() -> {
+                if (token == startToken) startRecognitionSafely();
+            });
             return;
         }
 
         // Don't start if recognizer isn't ready
         if (!isRecognizerReady || recognizer == null) {
-            Log.w(TAG, "startRecognitionSafely: Recognizer not ready or null.");
+            VLog.w(TAG, "startRecognitionSafely: Recognizer not ready or null.");
             updateStatus(getString(R.string.status_recognizer_not_ready));
 
             // Try to re-initialize if not already initializing
             if (!isRecognizerInitializing && !isRecognizerReady) {
-                Log.w(TAG, "startRecognitionSafely: Recognizer not ready & not init. Attempting to re-initialize.");
+                VLog.w(TAG, "startRecognitionSafely: Recognizer not ready & not init. Attempting to re-initialize.");
                 initializeRecognizer();
             }
             return;
@@ -326,25 +515,46 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         try {
             // Stop any previous recognition first
             recognizer.stop();
-            Log.d(TAG, "Recognizer stopped prior to startListening in startRecognitionSafely.");
+            VLog.d(TAG, "Recognizer stopped prior to startListening in startRecognitionSafely.");
         } catch (IllegalStateException e) {
             // Ignore if already stopped
-            Log.w(TAG, "IllegalStateException during recognizer.stop() in startRecognitionSafely (often benign): " + e.getMessage());
+            VLog.w(TAG, "IllegalStateException during recognizer.stop() in startRecognitionSafely (often benign): {}", e.getMessage());
         }
 
         // Cancel any pending timeout watchdogs
         cancelFinalResultTimeout();
+        cancelEndpoint();
+        lastPartialHypothesis = null;
+
+        // Idle between utterances: pick up new usage weights if due. The reload
+        // (APK read + grammar compile) runs on the decoder worker; starting again
+        // finds the worker busy and listens once it is done.
+        final LocaleBundle bundle = activeBundle;
+        if (bundle != null && grammarPriors.isReweightDue(bundle.tag)) {
+            final SpeechRecognizer current = recognizer;
+            decoderWorker.run(() -> {
+                if (RecognizerFactory.reloadGrammarIfDue(MainActivity.this, current, bundle)) {
+                    VLog.i(TAG, "Grammar reloaded with updated usage weights.");
+                }
+            });
+            startRecognitionSafely();
+            return;
+        }
 
         try {
             // Start listening for our predefined commands
+            startToken++; // Deferred starts queued earlier are now stale
             recognizer.startListening(GRAMMAR_SEARCH_NAME);
-            Log.i(TAG, "Recognizer started listening for grammar: '" + GRAMMAR_SEARCH_NAME + "'.");
+            listeningStartedAtMs = SystemClock.elapsedRealtime();
+            speechStartedAtMs = -1;
+            VLog.i(TAG, "Recognizer started listening for grammar: '{}'.", GRAMMAR_SEARCH_NAME);
             updateStatus(getString(R.string.status_listening));
+            recoveryScheduler.onListening(SystemClock.elapsedRealtime()); // Episode ends on a result or stable listening
         } catch (Exception e){
             // Handle start listening errors
-            Log.e(TAG, "Exception during startListening in startRecognitionSafely: " + e.getMessage());
+            VLog.e(TAG, "Exception during startListening in startRecognitionSafely: {}", e.getMessage());
+            handleRecognitionFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, "start_listening_exception");
             updateStatus(getString(R.string.status_error_starting_recognizer));
-            scheduleRestartRecognition(INITIAL_ERROR_RESTART_DELAY_MS, "start_listening_exception");
         }
     }
 
@@ -356,24 +566,73 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     private void stopRecognition() {
         // Cancel any pending timeout
         cancelFinalResultTimeout();
+        cancelEndpoint();
 
         if (recognizer != null) {
             try {
                 // Check if currently listening to our commands
                 if (recognizer.getSearchName() != null && recognizer.getSearchName().equals(GRAMMAR_SEARCH_NAME)) {
                     recognizer.cancel(); // Cancel active recognition
-                    Log.d(TAG, "Recognizer.cancel() called during stopRecognition.");
+                    VLog.d(TAG, "Recognizer.cancel() called during stopRecognition.");
                 }
                 recognizer.stop(); // Stop the recognizer
-                Log.i(TAG, "Recognizer stopped listening via stopRecognition().");
+                VLog.i(TAG, "Recognizer stopped listening via stopRecognition().");
             } catch (IllegalStateException e) {
                 // Ignore if already stopped
-                Log.w(TAG, "IllegalStateException during recognizer.stop/cancel in stopRecognition (often benign): " + e.getMessage());
+                VLog.w(TAG, "IllegalStateException during recognizer.stop/cancel in stopRecognition (often benign): {}", e.getMessage());
             } catch (Exception e) {
-                Log.e(TAG, "Unexpected exception during stopRecognition: " + e.getMessage());
+                VLog.e(TAG, "Unexpected exception during stopRecognition: {}", e.getMessage());
             }
         } else {
-            Log.d(TAG, "stopRecognition called but recognizer was null.");
+            VLog.d(TAG, "stopRecognition called but recognizer was null.");
+        }
+    }
+
+    /**
+     * FINALIZE THE CURRENT UTTERANCE
+     *
+     * PocketSphinx only delivers onResult() from stop(), so this is how an
+     * utterance is ended. Returns false if nothing was running to finalize.
+     */
+    private boolean finalizeUtterance() {
+        if (recognizer == null) return false;
+        try {
+            return recognizer.stop();
+        } catch (Exception e) {
+            VLog.w(TAG, "Exception finalizing utterance: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * ADAPTIVE ENDPOINTING
+     *
+     * After end of speech, the utterance is finalized once a silence window
+     * chosen by Endpointer passes: short when the partial hypothesis is
+     * already a complete command, longer for a prefix, longer in noise.
+     * Speech resuming inside the window cancels it (onBeginningOfSpeech).
+     */
+    private void startEndpoint() {
+        LocaleBundle bundle = activeBundle;
+        float noiseFloorDb = bundle != null ? acousticState.noiseFloorDb(bundle.tag) : Float.NaN;
+        Endpointer.HypothesisState state = Endpointer.classify(lastPartialHypothesis);
+        endpointWindowMs = Endpointer.windowMs(state, noiseFloorDb);
+        endOfSpeechAtMs = SystemClock.elapsedRealtime();
+        // INFO: release builds strip d(), and every chosen window must stay in the ring
+        VLog.i(TAG, "Endpoint window {}ms ({}, noise floor {}dB).", endpointWindowMs, state, noiseFloorDb);
+        VLog.d(TAG, "Endpoint partial: '{}'.", lastPartialHypothesis);
+        mainHandler.removeCallbacks(endpointRunnable);
+        mainHandler.postDelayed(endpointRunnable, endpointWindowMs);
+    }
+
+    private void cancelEndpoint() {
+        mainHandler.removeCallbacks(endpointRunnable);
+        endOfSpeechAtMs = 0;
+    }
+
+    private void onEndpoint() {
+        if (!finalizeUtterance()) {
+            VLog.d(TAG, "Endpoint reached but no utterance was running.");
         }
     }
 
@@ -385,13 +644,13 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     private void startFinalResultTimeout() {
         cancelFinalResultTimeout(); // Clear any existing timeout
         expectingFinalResult = true;
-        Log.d(TAG, "Starting watchdog for final result (" + FINAL_RESULT_TIMEOUT_MS + "ms).");
+        VLog.d(TAG, "Starting watchdog for final result ({}ms).", FINAL_RESULT_TIMEOUT_MS);
         mainHandler.postDelayed(finalResultTimeoutRunnable, FINAL_RESULT_TIMEOUT_MS);
     }
 
     private void cancelFinalResultTimeout() {
         if (expectingFinalResult) {
-            Log.d(TAG, "Cancelling watchdog for final result.");
+            VLog.d(TAG, "Cancelling watchdog for final result.");
         }
         mainHandler.removeCallbacks(finalResultTimeoutRunnable);
         expectingFinalResult = false;
@@ -407,14 +666,15 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     public void onInit(int status) {
         if (status == TextToSpeech.SUCCESS) {
-            // Try to set US English language
-            int result = tts.setLanguage(Locale.US);
+            // Speak the active bundle's language (US English until a bundle is chosen)
+            Locale locale = activeBundle != null ? activeBundle.toLocale() : Locale.US;
+            int result = tts.setLanguage(locale);
             if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
-                Log.e(TAG, "TTS language (US English) is not supported or missing data.");
+                VLog.e(TAG, "TTS language ({}) is not supported or missing data.", locale);
                 Toast.makeText(this, "TTS language not available.", Toast.LENGTH_SHORT).show();
                 isTtsReady = false;
             } else {
-                Log.i(TAG, "TTS initialized successfully.");
+                VLog.i(TAG, "TTS initialized successfully.");
                 isTtsReady = true;
                 // Announce readiness if recognizer is also ready
                 if (isRecognizerReady && getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
@@ -422,7 +682,7 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                 }
             }
         } else {
-            Log.e(TAG, "TTS initialization FAILED with status: " + status);
+            VLog.e(TAG, "TTS initialization FAILED with status: {}", status);
             Toast.makeText(this, "TTS failed to initialize.", Toast.LENGTH_SHORT).show();
             isTtsReady = false;
         }
@@ -441,10 +701,10 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
             tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, utteranceId);
         } else {
             // Log why speech didn't work
-            if (!isTtsReady) Log.w(TAG, "TTS not ready, cannot speak: '" + text + "'");
-            else if (tts == null) Log.w(TAG, "TTS is null, cannot speak: '" + text + "'");
-            else if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) Log.w(TAG, "Activity not started, not speaking: " + text);
-            else Log.w(TAG, "Text is null or empty when trying to speak.");
+            if (!isTtsReady) VLog.w(TAG, "TTS not ready, cannot speak: '{}'", text);
+            else if (tts == null) VLog.w(TAG, "TTS is null, cannot speak: '{}'", text);
+            else if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) VLog.w(TAG, "Activity not started, not speaking: {}", text);
+            else VLog.w(TAG, "Text is null or empty when trying to speak.");
         }
     }
 
@@ -457,8 +717,10 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      */
     @Override
     public void onBeginningOfSpeech() {
-        Log.d(TAG, "Beginning of speech detected.");
+        VLog.d(TAG, "Beginning of speech detected.");
+        if (speechStartedAtMs < 0) speechStartedAtMs = SystemClock.elapsedRealtime();
         cancelFinalResultTimeout(); // New speech started
+        cancelEndpoint(); // Speech resumed inside the silence window: keep listening
         if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
             updateStatus(getString(R.string.status_hearing_speech));
         }
@@ -471,13 +733,14 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      */
     @Override
     public void onEndOfSpeech() {
-        Log.d(TAG, "End of speech detected by recognizer.");
+        VLog.d(TAG, "End of speech detected by recognizer.");
         if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
             updateStatus(getString(R.string.status_processing_speech));
         }
         // Start timeout watchdog - expect result soon
         if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
             startFinalResultTimeout();
+            startEndpoint();
         }
     }
 
@@ -493,7 +756,8 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         if (hypothesis != null) {
             String partialText = hypothesis.getHypstr().toLowerCase(Locale.US).trim();
             if (!partialText.isEmpty()) {
-                Log.d(TAG, "Partial result: " + partialText);
+                lastPartialHypothesis = partialText;
+                VLog.d(TAG, "Partial result: {}", partialText);
                 updateStatus(getString(R.string.status_heard_partial, partialText));
             }
         }
@@ -508,9 +772,24 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     public void onResult(Hypothesis hypothesis) {
         cancelFinalResultTimeout(); // Got result, cancel watchdog
+        if (endOfSpeechAtMs > 0) {
+            VLog.d(TAG, "Endpoint: window {}ms, result {}ms after end of speech.", endpointWindowMs,
+                    SystemClock.elapsedRealtime() - endOfSpeechAtMs);
+        }
+        cancelEndpoint();
+        lastPartialHypothesis = null;
+        if (hypothesis != null) {
+            recoveryScheduler.onRecognized(SystemClock.elapsedRealtime()); // The decoder works again
+        }
+
+        // An action is running: hold the command instead of losing it
+        if (isActionPending) {
+            holdCommandDuringAction(hypothesis);
+            return;
+        }
 
         if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-            Log.w(TAG, "onResult received while activity is not resumed. Ignored. Hyp: " + (hypothesis != null ? hypothesis.getHypstr() : "null"));
+            VLog.w(TAG, "onResult received while activity is not resumed. Ignored. Hyp: {}", (hypothesis != null ? hypothesis.getHypstr() : "null"));
             return;
         }
 
@@ -521,59 +800,301 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
             String command = hypothesis.getHypstr().toLowerCase(Locale.US).trim();
             int score = hypothesis.getBestScore(); // Confidence score
 
-            Log.i(TAG, "Final result received: '" + command + "' (Confidence: " + score + ")");
+            VLog.d(TAG, "Final result received: '{}' (Confidence: {})", command, score);
 
             if (!command.isEmpty()) {
-                // Check if recognition confidence is high enough
-                if (score > -7000) {
-                    long currentTime = System.currentTimeMillis();
-                    // Prevent processing same command multiple times quickly
-                    if (!command.equals(lastProcessedFinalCommand) || (currentTime - lastProcessedFinalCommandTime > COMMAND_PROCESSING_COOLDOWN_MS)) {
-                        lastProcessedFinalCommand = command;
-                        lastProcessedFinalCommandTime = currentTime;
-
-                        Log.i(TAG, "Handling validated final command (good confidence): '" + command + "'");
+                // Check if recognition confidence is high enough (the bar scales with a chain's length)
+                List<CommandIntent> batch = CommandIntent.parseChain(command);
+                if (score > RecognizerFactory.minAcceptedScore(batch != null ? batch.size() : 1)) {
+                    CommandIntent intent = CommandIntent.fromPhrase(command);
+                    if (batch != null && batch.size() > 1) {
+                        // Several commands in one utterance: one batch, no restart in between
+                        VLog.d(TAG, "Handling chained command (good confidence): '{}' -> {}", command, batch);
+                        recordAcceptedCommand(command);
+                        learnFromUtterance(command, score);
+                        runCommandBatch(batch, command);
+                        isCommandHandled = true;
+                    } else if (intent == null || commandQueue.tryAccept(intent, System.currentTimeMillis())) {
+                        // Prevent processing the same intent multiple times quickly
+                        VLog.d(TAG, "Handling validated final command (good confidence): '{}'", command);
+                        recordAcceptedCommand(command);
+                        learnFromUtterance(command, score);
                         handleCommand(command);
                         isCommandHandled = true;
-                        errorRestartAttempts = 0; // Reset error count on success
                     } else {
-                        Log.i(TAG, "Duplicate final command '" + command + "' (good confidence) ignored due to cooldown.");
+                        VLog.d(TAG, "Duplicate {} command '{}' (good confidence) ignored due to debounce.", intent, command);
                     }
                 } else {
-                    // Confidence too low - ignore command
-                    Log.w(TAG, "Command '" + command + "' REJECTED due to low confidence: " + score);
+                    // Confidence too low - try the phone decode before giving up
+                    VLog.w(TAG, "Command '{}' REJECTED due to low confidence: {}", command, score);
+                    if (startPhoneticFallback("low_score")) return;
                     updateStatus(getString(R.string.status_no_clear_audio));
                     restartDelayMs = ON_RESULT_EMPTY_NULL_HYPOTHESIS_RESTART_DELAY_MS;
                 }
             } else {
                 // Empty command string
-                Log.i(TAG, "Final result was an empty string.");
+                VLog.d(TAG, "Final result was an empty string.");
+                if (startPhoneticFallback("empty_result")) return;
                 updateStatus(getString(R.string.status_no_clear_audio));
                 restartDelayMs = ON_RESULT_EMPTY_NULL_HYPOTHESIS_RESTART_DELAY_MS;
             }
         } else {
             // Null hypothesis
-            Log.i(TAG, "Hypothesis was null in onResult.");
+            VLog.d(TAG, "Hypothesis was null in onResult.");
             updateStatus(getString(R.string.status_recognizer_issue_try_again));
             restartDelayMs = ON_RESULT_EMPTY_NULL_HYPOTHESIS_RESTART_DELAY_MS;
         }
 
         // Restart listening if no action was started
         if (!isActionPending && getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-            Log.d(TAG, "onResult: No action pending. Scheduling restart. isCommandHandled: " + isCommandHandled);
+            VLog.d(TAG, "onResult: No action pending. Scheduling restart. isCommandHandled: {}", isCommandHandled);
             scheduleRestartRecognition(restartDelayMs, "onResult_completed_or_failed");
         } else if (isActionPending) {
-            Log.d(TAG, "onResult: Action is pending after handleCommand. Not scheduling immediate restart. onResume will handle.");
+            VLog.d(TAG, "onResult: Action is pending after handleCommand. Not scheduling immediate restart. onResume will handle.");
+        }
+    }
+
+    // ==================== PHONETIC FALLBACK ====================
+
+    /**
+     * RE-DECODE A REJECTED UTTERANCE AS PHONES
+     *
+     * An out-of-grammar or poorly scored utterance would otherwise cost the
+     * user a full retry. The same audio is decoded with the phone loop on the
+     * decoder worker and matched against the grammar phrases; listening
+     * restarts from onPhoneticFallbackResult(), or from onResume if the
+     * activity paused meanwhile (startRecognitionSafely waits for the worker).
+     *
+     * @return false if the fallback can't run (the caller handles the rejection)
+     */
+    private boolean startPhoneticFallback(String reason) {
+        final SpeechRecognizer current = recognizer;
+        if (current == null) return false;
+
+        updateStatus(getString(R.string.status_processing_speech));
+        decoderWorker.run(() -> {
+            PhoneticMatcher.Match match = null;
+            try {
+                long startedAt = SystemClock.elapsedRealtime();
+                short[] audio = RecognizerFactory.readUtteranceAudio(current, 0);
+                if (audio == null || audio.length < PHONETIC_FALLBACK_MIN_SAMPLES) {
+                    mainHandler.post(() -> onPhoneticFallbackResult(current, null));
+                    return;
+                }
+                String[] phones = PhoneticMatcher.speechPhones(RecognizerFactory.decodePhones(current, audio));
+                match = phoneticMatcherFor(current).match(phones);
+                VLog.d(TAG, "Phonetic fallback ({}): {} phones decoded in {}ms.", reason, phones.length,
+                        SystemClock.elapsedRealtime() - startedAt);
+            } catch (Exception e) {
+                VLog.w(TAG, "Phonetic fallback failed ({}).", reason, e);
+            }
+            final PhoneticMatcher.Match result = match;
+            mainHandler.post(() -> onPhoneticFallbackResult(current, result));
+        });
+        return true;
+    }
+
+    /**
+     * PHONE INDEX FOR THIS RECOGNIZER'S DICTIONARY (decoder worker)
+     */
+    private PhoneticMatcher phoneticMatcherFor(SpeechRecognizer current) {
+        if (phoneticMatcherOwner != current || phoneticMatcher == null) {
+            phoneticMatcher = PhoneticMatcher.build(current.getDecoder()::lookupWord);
+            phoneticMatcherOwner = current;
+            VLog.i(TAG, "Phonetic index built: {} grammar phrases.", phoneticMatcher.size());
+        }
+        return phoneticMatcher;
+    }
+
+    /**
+     * ACT ON THE PHONETIC MATCH (main thread) and resume listening
+     */
+    private void onPhoneticFallbackResult(SpeechRecognizer decodedBy, PhoneticMatcher.Match match) {
+        if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            return; // onResume restarts listening
+        }
+
+        long restartDelayMs = ON_RESULT_EMPTY_NULL_HYPOTHESIS_RESTART_DELAY_MS;
+        if (match == null || decodedBy != recognizer) {
+            VLog.i(TAG, "Phonetic fallback: no confident match.");
+            updateStatus(getString(R.string.status_no_clear_audio));
+        } else if (isActionPending) {
+            queueCommands(Collections.singletonList(match.intent), match.phrase, "Phonetic fallback, action pending");
+            return;
+        } else if (commandQueue.tryAccept(match.intent, System.currentTimeMillis())) {
+            VLog.i(TAG, "Phonetic fallback matched '{}' (distance {}, margin {}).", match.phrase, match.distance, match.margin);
+            recordAcceptedCommand(match.phrase);
+            handleCommand(match.phrase);
+            restartDelayMs = ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS;
+        } else {
+            VLog.i(TAG, "Duplicate {} command '{}' (phonetic fallback) ignored due to debounce.", match.intent, match.phrase);
+        }
+
+        if (!isActionPending) {
+            scheduleRestartRecognition(restartDelayMs, "phonetic_fallback");
         }
     }
 
+    // ==================== BACKGROUND LISTENING ====================
+
+    /**
+     * HAND THE MICROPHONE TO THE BACKGROUND SERVICE
+     *
+     * The activity detaches from the shared recognizer (only one listener may
+     * drive it) and the service takes over until it is stopped. The service
+     * acquires the recognizer on the decoder worker, so a phonetic re-decode
+     * still running here finishes before the service touches the decoder.
+     */
+    private void startBackgroundListening() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            VLog.w(TAG, "Background listening needs the microphone permission.");
+            backgroundListeningToggle.setChecked(false);
+            Toast.makeText(this, getString(R.string.toast_permission_required), Toast.LENGTH_LONG).show();
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU && ContextCompat.checkSelfPermission(this,
+                Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this,
+                    new String[]{Manifest.permission.POST_NOTIFICATIONS}, PERMISSIONS_REQUEST_NOTIFICATIONS);
+        }
+
+        VLog.i(TAG, "Starting background listening.");
+        stopRecognition();
+        if (recognizer != null) {
+            recognizer.removeListener(this);
+            recognizer = null;
+        }
+        synchronized (this) {
+            isRecognizerReady = false;
+        }
+        VoiceListeningService.start(this, activeBundle != null ? activeBundle.tag : null);
+        updateStatus(getString(R.string.status_background_listening));
+    }
+
+    private final VoiceListeningService.Listener serviceListener = new VoiceListeningService.Listener() {
+        @Override
+        public boolean canRunCommands() {
+            // A pending action queues them; otherwise camera actions need us in front
+            return isActionPending || getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED);
+        }
+
+        @Override
+        public void onVoiceCommand(String command) {
+            handleServiceCommand(command);
+        }
+
+        @Override
+        public void onServiceStopped() {
+            VLog.i(TAG, "Background listening stopped. Taking the recognizer back.");
+            backgroundListeningToggle.setChecked(false);
+            if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                initializeRecognizer();
+            }
+        }
+    };
+
+    /**
+     * COMMAND HEARD BY THE BACKGROUND SERVICE
+     *
+     * Same debounce and action queue as our own results. The service only
+     * hands commands over while canRunCommands(); one that still arrives
+     * in the background (lifecycle race) waits for onResume.
+     */
+    private void handleServiceCommand(String command) {
+        List<CommandIntent> batch = CommandIntent.parseChain(command);
+        if (batch == null) {
+            VLog.w(TAG, "Service: unknown command '{}' ignored.", command);
+            return;
+        }
+        if (isActionPending) {
+            queueCommands(CommandIntent.executionOrder(batch), command, "Service, action pending");
+            return;
+        }
+        if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            VLog.i(TAG, "Service: command '{}' waits for the activity to resume.", command);
+            pendingServiceCommand = command;
+            return;
+        }
+        runCommandBatch(batch, command);
+    }
+
+    /**
+     * COMMAND EXTRA FROM THE SERVICE (activity was launched or brought up by it)
+     */
+    private void takeServiceCommand(Intent intent) {
+        String command = intent != null ? intent.getStringExtra(VoiceListeningService.EXTRA_VOICE_COMMAND) : null;
+        if (command != null) {
+            VLog.i(TAG, "Activity started for background command '{}'.", command);
+            pendingServiceCommand = command;
+            intent.removeExtra(VoiceListeningService.EXTRA_VOICE_COMMAND); // Not again on recreation
+            VoiceListeningService.clearCommandRequest(this); // Started by its full-screen intent: no tap needed
+        }
+    }
+
+    /**
+     * LEARN FROM AN ACCEPTED UTTERANCE (CMN / noise floor, and MLLR training if confident)
+     *
+     * Only accepted commands are used, so noise and false triggers never
+     * reach the stored estimates. The audio is copied out on the decoder
+     * worker; listening restarts once it is done.
+     */
+    private void learnFromUtterance(String command, int score) {
+        final SpeechRecognizer current = recognizer;
+        final LocaleBundle bundle = activeBundle;
+        final File modelDir = activeModelDir;
+        if (current == null || bundle == null) return;
+
+        final long speechOffsetMs = RecognizerFactory.speechOffsetMs(listeningStartedAtMs, speechStartedAtMs);
+        final boolean isAdaptationCandidate = score > ADAPTATION_MIN_SCORE && modelDir != null;
+        decoderWorker.run(() -> {
+            short[] audio = RecognizerFactory.readUtteranceAudio(current, speechOffsetMs);
+            if (audio == null) return;
+            acousticState.update(bundle.tag, audio); // Estimation itself runs on the store's thread
+            if (isAdaptationCandidate) {
+                collectAdaptationUtterance(current, bundle, modelDir, command, audio);
+            }
+        });
+    }
+
+    /**
+     * COUNT A RECOGNIZED COMMAND towards the grammar's usage weights
+     */
+    private void recordAcceptedCommand(String command) {
+        LocaleBundle bundle = activeBundle;
+        if (bundle != null) grammarPriors.recordAccepted(bundle.tag, command);
+    }
+
+    /**
+     * KEEP A CONFIDENT COMMAND FOR MLLR TRAINING
+     *
+     * The grammar transcription is expanded to CI phones with the decoder's
+     * own dictionary, so the job doesn't need to load it. Runs on the
+     * decoder worker.
+     */
+    private void collectAdaptationUtterance(SpeechRecognizer current, LocaleBundle bundle, File modelDir,
+                                            String command, short[] audio) {
+        List<String> phones = new ArrayList<>();
+        for (String word : command.split("\\s+")) {
+            String pronunciation = current.getDecoder().lookupWord(word);
+            if (pronunciation == null) {
+                VLog.d(TAG, "No pronunciation for '{}'; utterance not used for adaptation.", word);
+                return;
+            }
+            phones.addAll(Arrays.asList(pronunciation.trim().split("\\s+")));
+        }
+        speakerAdaptation.collect(bundle.tag, modelDir, audio, phones.toArray(new String[0]));
+    }
+
     /**
      * RECOGNITION ERROR HANDLER
      */
     @Override
     public void onError(Exception e) {
-        Log.e(TAG, "Recognition error: " + e.getMessage(), e);
-        handleRecognitionErrorOrWatchdogTimeout("onError_callback");
+        VLog.e(TAG, "Recognition error: {}", e.getMessage(), e);
+        handleRecognitionFailure(isAudioDeviceError(e)
+                ? RecoveryScheduler.FailureClass.AUDIO_DEVICE_BUSY
+                : RecoveryScheduler.FailureClass.DECODER_ERROR, "onError_callback");
     }
 
     /**
@@ -581,66 +1102,174 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      */
     @Override
     public void onTimeout() {
-        Log.w(TAG, "Recognition timeout (Sphinx internal).");
-        handleRecognitionErrorOrWatchdogTimeout("onTimeout_callback");
+        VLog.w(TAG, "Recognition timeout (Sphinx internal).");
+        handleRecognitionFailure(RecoveryScheduler.FailureClass.TIMEOUT, "onTimeout_callback");
+    }
+
+    /**
+     * MICROPHONE-IN-USE ERRORS
+     *
+     * PocketSphinx reports a microphone it can't open as an IOException
+     * ("Failed to start recording. Microphone might be already in use.").
+     */
+    private static boolean isAudioDeviceError(Exception e) {
+        String message = e != null ? e.getMessage() : null;
+        if (message == null) return false;
+        String lower = message.toLowerCase(Locale.US);
+        return lower.contains("microphone") || lower.contains("recording");
+    }
+
+    /**
+     * DUMP THE IN-MEMORY LOG RING (background thread)
+     *
+     * Written to cache/logs/recognition.log, replacing the previous dump.
+     */
+    private void dumpRecentLog() {
+        final File dir = new File(getCacheDir(), "logs");
+        new Thread(() -> {
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Cannot create " + dir.getAbsolutePath());
+                }
+                File file = new File(dir, "recognition.log");
+                int records = VLog.dump(file);
+                VLog.i(TAG, "Dumped {} log records to {}", records, file.getAbsolutePath());
+            } catch (IOException e) {
+                VLog.w(TAG, "Log dump failed: {}", e.getMessage());
+            }
+        }).start();
     }
 
     /**
      * CENTRAL ERROR HANDLING
      *
-     * Handles all types of recognition errors with automatic retry logic
+     * Classifies the failure and lets RecoveryScheduler pick the recovery
+     * strategy and delay. Never gives up permanently: when failures pile up
+     * the scheduler slows down instead.
      */
-    private void handleRecognitionErrorOrWatchdogTimeout(String reason) {
+    private void handleRecognitionFailure(RecoveryScheduler.FailureClass failure, String reason) {
         cancelFinalResultTimeout();
 
         // Update UI based on error type
         if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
-            if ("onError_callback".equals(reason)) {
-                updateStatus(getString(R.string.status_error_recognition_generic));
-            } else if ("onTimeout_callback".equals(reason)) {
-                updateStatus(getString(R.string.status_timeout_listening_again));
-            } else if ("watchdog_timeout".equals(reason)) {
-                updateStatus(getString(R.string.status_error_recognizer_stuck));
+            switch (failure) {
+                case DECODER_ERROR:
+                case AUDIO_DEVICE_BUSY:
+                    updateStatus(getString(R.string.status_error_recognition_generic));
+                    break;
+                case TIMEOUT:
+                    updateStatus(getString(R.string.status_timeout_listening_again));
+                    break;
+                case WATCHDOG_STALL:
+                    updateStatus(getString(R.string.status_error_recognizer_stuck));
+                    break;
+                case INIT_FAILURE:
+                    break; // Init path already shows the specific error
             }
         }
 
         // Don't restart if activity is not active or action is pending
         if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED) || isActionPending) {
-            Log.w(TAG, "Error/Timeout ("+reason+"): Activity not resumed or action pending. Not restarting from here.");
+            VLog.w(TAG, "Failure {} ({}): Activity not resumed or action pending. Not recovering from here.", failure, reason);
+            return;
+        }
+        if (isFinishing() || isDestroyed()) {
+            VLog.w(TAG, "Failure {} ({}): Activity finishing/destroyed. Not recovering.", failure, reason);
             return;
         }
 
-        // Handle retry logic with exponential backoff
-        if (isRecognizerReady && !isFinishing() && !isDestroyed()) {
-            if (errorRestartAttempts < MAX_ERROR_RESTART_ATTEMPTS || reason.startsWith("init_")) {
-                if (!reason.startsWith("init_")) errorRestartAttempts++;
-
-                long delay = INITIAL_ERROR_RESTART_DELAY_MS;
-                // Exponential backoff for repeated errors
-                if (!reason.startsWith("init_") && errorRestartAttempts > 1) {
-                    delay = Math.min(INITIAL_ERROR_RESTART_DELAY_MS * (long)Math.pow(2, errorRestartAttempts - 1), MAX_ERROR_RESTART_DELAY_MS);
-                } else if ("onTimeout_callback".equals(reason)){
-                    delay = ON_TIMEOUT_RESTART_DELAY_MS;
-                }
-
-                Log.d(TAG, "Attempting to restart listening after " + reason + " (attempt " + errorRestartAttempts + ") with delay: " + delay + "ms");
-                scheduleRestartRecognition(delay, reason + "_restart_attempt");
-            } else {
-                // Too many errors - give up
-                Log.e(TAG, "Max error restart attempts reached for " + reason + ".");
-                speak(getString(R.string.tts_error_voice_recognition_failed_permanently));
-                if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
-                    updateStatus(getString(R.string.status_error_max_retries));
-                }
+        RecoveryScheduler.Plan plan = recoveryScheduler.onFailure(failure, SystemClock.elapsedRealtime());
+        if (plan.degraded) {
+            updateStatus(getString(R.string.status_recovering_slowly, (int) (plan.delayMs / 1000)));
+            if (!isDegradedAnnounced) {
+                speak(getString(R.string.tts_voice_recognition_degraded));
+                isDegradedAnnounced = true;
+                dumpRecentLog(); // Keep the history that led here
             }
         } else {
-            Log.w(TAG, "Cannot restart after "+reason+": Recognizer not ready or activity finishing/destroyed.");
-            // Try re-initialization if recognizer isn't ready
-            if (!isRecognizerInitializing && !isRecognizerReady && ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED) {
-                Log.i(TAG, "Attempting to re-initialize recognizer after " + reason + " as it was not ready.");
-                initializeRecognizer();
+            isDegradedAnnounced = false; // Degraded period over; announce the next one again
+        }
+
+        switch (plan.strategy) {
+            case SOFT_RESTART:
+                if (isRecognizerReady) {
+                    scheduleRestartRecognition(plan.delayMs, reason + "_soft_restart");
+                } else {
+                    // Nothing to restart yet: build it
+                    mainHandler.postDelayed(() -> rebuildRecognizer(reason), plan.delayMs);
+                }
+                break;
+            case SEARCH_RESET:
+                mainHandler.postDelayed(() -> resetGrammarSearch(reason), plan.delayMs);
+                break;
+            case FULL_REBUILD:
+                mainHandler.postDelayed(() -> rebuildRecognizer(reason), plan.delayMs);
+                break;
+        }
+    }
+
+    /**
+     * RECOVERY: RELOAD THE GRAMMAR SEARCH
+     *
+     * Cancels the current utterance and re-creates the grammar search on the
+     * existing decoder (cheap compared to a rebuild), then listens again.
+     */
+    private void resetGrammarSearch(String reason) {
+        if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED) || isActionPending
+                || !isRecognizerReady || recognizer == null || activeBundle == null) {
+            VLog.w(TAG, "Search reset ({}) aborted: conditions no longer met.", reason);
+            return;
+        }
+
+        VLog.i(TAG, "Recovery: resetting grammar search ({}).", reason);
+        stopRecognition();
+        final SpeechRecognizer localRecognizer = recognizer;
+        final LocaleBundle bundle = activeBundle;
+
+        decoderWorker.run(() -> {
+            try {
+                RecognizerFactory.loadGrammar(MainActivity.this, localRecognizer, bundle);
+                mainHandler.post(this::startRecognitionSafely);
+            } catch (Exception e) {
+                VLog.e(TAG, "Search reset failed: {}", e.getMessage(), e);
+                mainHandler.post(() -> handleRecognitionFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, "search_reset_failed"));
             }
+        });
+    }
+
+    /**
+     * RECOVERY: DISCARD AND REBUILD THE RECOGNIZER
+     *
+     * Drops the (possibly broken) recognizer from the cache - it is shut down
+     * off-thread - and builds a fresh one. Both run on the decoder worker,
+     * after any work still using the old decoder.
+     */
+    private void rebuildRecognizer(String reason) {
+        if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED) || isActionPending
+                || isRecognizerInitializing || isFinishing() || isDestroyed()) {
+            VLog.w(TAG, "Rebuild ({}) aborted: conditions no longer met.", reason);
+            return;
         }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            VLog.w(TAG, "Rebuild ({}) aborted: microphone permission not granted.", reason);
+            return;
+        }
+
+        VLog.i(TAG, "Recovery: rebuilding recognizer ({}).", reason);
+        stopRecognition();
+        if (recognizer != null) {
+            recognizer.removeListener(this);
+            recognizer = null;
+        }
+        synchronized (this) {
+            isRecognizerReady = false;
+        }
+        if (activeBundle != null) {
+            final String tag = activeBundle.tag;
+            final DecoderCache cache = DecoderCache.getInstance(this);
+            decoderWorker.run(() -> cache.invalidate(tag));
+        }
+        initializeRecognizer();
     }
 
     /**
@@ -650,36 +1279,143 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      */
     private void scheduleRestartRecognition(long delayMs, String reason) {
         if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-            Log.w(TAG, "Not scheduling restart (" + reason + "): Activity not resumed at time of scheduling call.");
+            VLog.w(TAG, "Not scheduling restart ({}): Activity not resumed at time of scheduling call.", reason);
             return;
         }
         if (isActionPending) {
-            Log.w(TAG, "Not scheduling restart (" + reason + "): Action is pending.");
+            VLog.w(TAG, "Not scheduling restart ({}): Action is pending.", reason);
             return;
         }
 
         if (isRecognizerReady && !isFinishing() && !isDestroyed()) {
-            Log.i(TAG, "Scheduling restart of listening (" + reason + ") in " + delayMs + "ms.");
+            VLog.i(TAG, "Scheduling restart of listening ({}) in {}ms.", reason, delayMs);
             mainHandler.postDelayed(() -> {
                 // Check conditions again before actually restarting
                 if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED) &&
                         isRecognizerReady && !isFinishing() && !isDestroyed() && !isActionPending) {
-                    Log.i(TAG, "Delayed restart (" + reason + ") of listening now executing.");
+                    VLog.i(TAG, "Delayed restart ({}) of listening now executing.", reason);
                     startRecognitionSafely();
                 } else {
-                    Log.w(TAG, "Delayed restart (" + reason + ") aborted: Conditions no longer met.");
+                    VLog.w(TAG, "Delayed restart ({}) aborted: Conditions no longer met.", reason);
                 }
             }, delayMs);
         } else {
-            Log.w(TAG, "Not scheduling restart (" + reason + "): Recognizer not ready or activity finishing/destroyed.");
+            VLog.w(TAG, "Not scheduling restart ({}): Recognizer not ready or activity finishing/destroyed.", reason);
             // Try re-initialization if needed
             if (!isRecognizerInitializing && !isRecognizerReady && ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED) {
-                Log.i(TAG, "Attempting to re-initialize recognizer during scheduleRestart as it was not ready.");
+                VLog.i(TAG, "Attempting to re-initialize recognizer during scheduleRestart as it was not ready.");
                 initializeRecognizer();
             }
         }
     }
 
+    /**
+     * HOLD COMMAND WHILE AN ACTION IS PENDING
+     *
+     * Validates a final result that arrived while camera/video was active
+     * and queues it to run once the action finishes.
+     */
+    private void holdCommandDuringAction(Hypothesis hypothesis) {
+        if (hypothesis == null) return;
+
+        String command = hypothesis.getHypstr().toLowerCase(Locale.US).trim();
+        int score = hypothesis.getBestScore();
+        List<CommandIntent> batch = CommandIntent.parseChain(command);
+
+        if (batch == null || score <= RecognizerFactory.minAcceptedScore(batch.size())) {
+            VLog.i(TAG, "Action pending: discarding unclear/unknown result '{}' (Confidence: {})", command, score);
+            return;
+        }
+        recordAcceptedCommand(command);
+        queueCommands(CommandIntent.executionOrder(batch), command, "Action pending");
+    }
+
+    /**
+     * DEBOUNCE + HOLD COMMANDS until the pending action finishes
+     */
+    private void queueCommands(List<CommandIntent> intents, String command, String context) {
+        long now = System.currentTimeMillis();
+        for (CommandIntent intent : intents) {
+            if (!commandQueue.tryAccept(intent, now)) {
+                VLog.i(TAG, "{}: duplicate {} command ignored due to debounce.", context, intent);
+            } else if (commandQueue.offer(intent, command, now)) {
+                VLog.i(TAG, "{}: queued {} from '{}'.", context, intent, command);
+            } else {
+                VLog.w(TAG, "{}: command queue full, dropping {} from '{}'.", context, intent, command);
+            }
+        }
+    }
+
+    /**
+     * RUN A CHAINED UTTERANCE AS ONE ORDERED BATCH
+     *
+     * Camera intents run after the others (CommandIntent.executionOrder).
+     * If one of them leaves the app for an external capture app, the rest
+     * of the batch is held in the command queue and runs when it returns,
+     * in order.
+     */
+    private void runCommandBatch(List<CommandIntent> batch, String command) {
+        if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            VLog.w(TAG, "runCommandBatch called but activity not resumed. Ignoring: {}", command);
+            return;
+        }
+        List<CommandIntent> ordered = CommandIntent.executionOrder(batch);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ordered.size(); i++) {
+            if (isActionPending) {
+                queueCommands(ordered.subList(i, ordered.size()), command, "Batch suspended");
+                return;
+            }
+            CommandIntent intent = ordered.get(i);
+            if (!commandQueue.tryAccept(intent, now)) {
+                VLog.i(TAG, "Batch: duplicate {} in '{}' ignored due to debounce.", intent, command);
+                continue;
+            }
+            dispatchIntent(intent);
+        }
+    }
+
+    /**
+     * RUN HELD COMMANDS
+     *
+     * Executes queued commands in order until one of them starts a new
+     * pending action (which will drain the rest when it finishes).
+     *
+     * @return true if a new action is now pending
+     */
+    private boolean drainCommandQueue() {
+        isDrainingCommandQueue = true;
+        try {
+            while (!isActionPending) {
+                CommandQueue.PendingCommand next = commandQueue.poll();
+                if (next == null) break;
+                VLog.i(TAG, "Running queued {} command '{}' (held {}ms).", next.intent, next.phrase, (System.currentTimeMillis() - next.receivedAtMs));
+                dispatchIntent(next.intent);
+            }
+        } finally {
+            isDrainingCommandQueue = false;
+        }
+        return isActionPending;
+    }
+
+    /**
+     * ACTION FINISHED
+     *
+     * Called when camera/video returns (or fails to launch). Runs any held
+     * commands, then resumes listening if nothing else took over.
+     */
+    private void onActionFinished(long restartDelayMs, String reason) {
+        isActionPending = false;
+        if (isDrainingCommandQueue) {
+            return; // Action failed while draining; the outer drain loop continues
+        }
+        if (drainCommandQueue()) {
+            VLog.i(TAG, "onActionFinished ({}): queued command started a new action.", reason);
+            return;
+        }
+        scheduleRestartRecognition(restartDelayMs, reason);
+    }
+
     /**
      * COMMAND PROCESSING
      *
@@ -687,87 +1423,143 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      */
     private void handleCommand(String commandText) {
         if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-            Log.w(TAG, "handleCommand called but activity not resumed. Ignoring command: " + commandText);
+            VLog.w(TAG, "handleCommand called but activity not resumed. Ignoring command: {}", commandText);
             return;
         }
 
-        Log.i(TAG, "Processing verified command in handleCommand: '" + commandText + "'");
+        VLog.i(TAG, "Processing verified command in handleCommand: '{}'", commandText);
 
         String processedCommand = commandText.toLowerCase(Locale.US).trim();
-        boolean commandLeadsToPendingAction = false;
-
-        // Map commands to actions
-        switch (processedCommand) {
-            case "take photo":
-            case "snap photo":
-            case "take picture":
-            case "snap picture":
-            case "photo":
-            case "picture":
-            case "open camera for photo":
-            case "capture photo":
-            case "capture picture":
-                commandLeadsToPendingAction = true;
+        CommandIntent intent = CommandIntent.fromPhrase(processedCommand);
+
+        if (intent == null) {
+            // Unknown command
+            VLog.w(TAG, "Unrecognized final command: '{}'", processedCommand);
+            String ttsMessage = getString(R.string.tts_unrecognized_command, processedCommand);
+            speak(ttsMessage);
+            String formattedStatus = getString(R.string.status_unrecognized_command, processedCommand);
+            updateStatus(formattedStatus);
+            return;
+        }
+
+        dispatchIntent(intent);
+    }
+
+    /**
+     * INTENT -> ACTION
+     */
+    private void dispatchIntent(CommandIntent intent) {
+        if (!actionExecutor.execute(intent)) {
+            VLog.w(TAG, "No action for intent {}", intent);
+        }
+    }
+
+    /**
+     * ACTION REGISTRY
+     *
+     * One entry per intent; ActionExecutor runs them and owns the cached
+     * launch targets for the external camera/video apps.
+     */
+    private void registerActions() {
+        actionExecutor.register(CommandIntent.PHOTO, () -> {
+            if (cameraController.canTakePhoto()) {
+                // In-app capture: recognition keeps running, nothing pending
+                cameraController.takePhoto();
+                updateStatus(getString(R.string.status_capturing_photo));
+            } else {
                 isActionPending = true; // Mark that camera will be launched
                 takePhoto();
-                break;
+            }
+        });
 
-            case "record video":
-            case "start video":
-            case "video":
-            case "capture video":
-            case "film video":
-            case "start recording":
-            case "begin video":
-                commandLeadsToPendingAction = true;
+        actionExecutor.register(CommandIntent.VIDEO, () -> {
+            if (cameraController.canRecordVideo()) {
+                cameraController.startRecording();
+            } else {
                 isActionPending = true; // Mark that video will be launched
                 recordVideo();
-                break;
+            }
+        });
 
-            case "send message":
-            case "send text":
-            case "message":
-            case "text":
-            case "write message":
-            case "compose message":
-                speak(getString(R.string.tts_message_placeholder));
-                updateStatus(getString(R.string.status_message_command));
-                break;
+        actionExecutor.register(CommandIntent.STOP_RECORDING, () -> {
+            if (cameraController.isRecording()) {
+                cameraController.stopRecording();
+            } else {
+                VLog.i(TAG, "Stop recording requested but no in-app recording is active.");
+                updateStatus(getString(R.string.status_not_recording));
+            }
+        });
 
-            default:
-                // Unknown command
-                Log.w(TAG, "Unrecognized final command: '" + processedCommand + "'");
-                String ttsMessage = getString(R.string.tts_unrecognized_command, processedCommand);
-                speak(ttsMessage);
-                String formattedStatus = getString(R.string.status_unrecognized_command, processedCommand);
-                updateStatus(formattedStatus);
-                break;
-        }
+        actionExecutor.register(CommandIntent.MESSAGE, () -> {
+            speak(getString(R.string.tts_message_placeholder));
+            updateStatus(getString(R.string.status_message_command));
+        });
     }
 
+    /**
+     * IN-APP CAMERA CALLBACKS (main thread)
+     */
+    private final InAppCameraController.Listener cameraListener = new InAppCameraController.Listener() {
+        @Override
+        public void onCameraReady() {
+            VLog.i(TAG, "In-app camera ready. Photo/video commands will not leave the app.");
+        }
+
+        @Override
+        public void onCameraUnavailable(String reason) {
+            VLog.w(TAG, "In-app camera unavailable ({}). Using external camera app for captures.", reason);
+        }
+
+        @Override
+        public void onPhotoSaved(Uri uri) {
+            updateStatus(getString(R.string.status_photo_saved));
+        }
+
+        @Override
+        public void onPhotoFailed(String reason) {
+            updateStatus(getString(R.string.status_error_photo_failed, reason));
+        }
+
+        @Override
+        public void onRecordingStarted() {
+            updateStatus(getString(R.string.status_recording_video_in_app));
+        }
+
+        @Override
+        public void onRecordingFinished(Uri uri, String errorOrNull) {
+            if (errorOrNull == null) {
+                updateStatus(getString(R.string.status_video_saved));
+            } else {
+                updateStatus(getString(R.string.status_error_video_failed, errorOrNull));
+            }
+        }
+    };
+
     /**
      * LAUNCH CAMERA FOR PHOTOS
      */
     private void takePhoto() {
-        Log.i(TAG, "takePhoto action initiated.");
-        stopRecognition(); // Stop listening before launching camera
+        VLog.i(TAG, "takePhoto action initiated.");
 
-        Intent intent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
-        if (intent.resolveActivity(getPackageManager()) != null) {
-            speak(getString(R.string.tts_opening_camera_photo));
+        // Launch first (pre-resolved target, no PackageManager query), then feedback
+        boolean launched = actionExecutor.launchCapture(MediaStore.ACTION_IMAGE_CAPTURE);
+        stopRecognition(); // Stop listening while the camera app is in front
+
+        if (launched) {
             updateStatus(getString(R.string.status_opening_camera));
-            startActivity(intent); // Launch camera app
+            speak(getString(R.string.tts_opening_camera_photo));
         } else {
             // No camera app available
             String noCameraAppMessage = getString(R.string.toast_no_camera_app);
-            Log.e(TAG, noCameraAppMessage);
+            VLog.e(TAG, noCameraAppMessage);
             speak(noCameraAppMessage);
             Toast.makeText(this, noCameraAppMessage, Toast.LENGTH_SHORT).show();
             updateStatus(getString(R.string.status_error_no_camera));
-            isActionPending = false; // Reset flag
-            // Restart listening since action failed
+            // Run held commands / restart listening since action failed
             if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-                scheduleRestartRecognition(ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS, "takePhoto_failed_restart");
+                onActionFinished(ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS, "takePhoto_failed_restart");
+            } else {
+                isActionPending = false; // Reset flag
             }
         }
     }
@@ -776,25 +1568,27 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      * LAUNCH CAMERA FOR VIDEO
      */
     private void recordVideo() {
-        Log.i(TAG, "recordVideo action initiated.");
-        stopRecognition(); // Stop listening before launching video
+        VLog.i(TAG, "recordVideo action initiated.");
 
-        Intent intent = new Intent(MediaStore.ACTION_VIDEO_CAPTURE);
-        if (intent.resolveActivity(getPackageManager()) != null) {
-            speak(getString(R.string.tts_starting_video_record));
+        // Launch first (pre-resolved target, no PackageManager query), then feedback
+        boolean launched = actionExecutor.launchCapture(MediaStore.ACTION_VIDEO_CAPTURE);
+        stopRecognition(); // Stop listening while the video app is in front
+
+        if (launched) {
             updateStatus(getString(R.string.status_recording_video));
-            startActivity(intent); // Launch video app
+            speak(getString(R.string.tts_starting_video_record));
         } else {
             // No video app available
             String noVideoAppMessage = getString(R.string.toast_no_video_app);
-            Log.e(TAG, noVideoAppMessage);
+            VLog.e(TAG, noVideoAppMessage);
             speak(noVideoAppMessage);
             Toast.makeText(this, noVideoAppMessage, Toast.LENGTH_SHORT).show();
             updateStatus(getString(R.string.status_error_no_video_recorder));
-            isActionPending = false; // Reset flag
-            // Restart listening since action failed
+            // Run held commands / restart listening since action failed
             if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-                scheduleRestartRecognition(ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS, "recordVideo_failed_restart");
+                onActionFinished(ON_RESULT_VALID_COMMAND_NO_ACTION_RESTART_DELAY_MS, "recordVideo_failed_restart");
+            } else {
+                isActionPending = false; // Reset flag
             }
         }
     }
@@ -829,22 +1623,18 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     protected void onResume() {
         super.onResume();
-        Log.i(TAG, "onResume called. isActionPending: " + isActionPending +
-                ", isRecognizerReady: " + isRecognizerReady +
-                ", isRecognizerInitializing: " + isRecognizerInitializing);
+        VLog.i(TAG, "onResume called. isActionPending: {}, isRecognizerReady: {}, isRecognizerInitializing: {}", isActionPending, isRecognizerReady, isRecognizerInitializing);
 
         if (isActionPending) {
-            // Returning from camera/video - restart listening after delay
-            final boolean returningFromAction = true;
-            isActionPending = false;
-            Log.i(TAG, "onResume: Returning from a pending action. Will attempt restart listening after delay.");
+            // Returning from camera/video - run held commands, then restart listening after delay
+            VLog.i(TAG, "onResume: Returning from a pending action with {} queued command(s). Will run them / restart listening after delay.", commandQueue.size());
 
             mainHandler.postDelayed(() -> {
                 if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
-                    Log.i(TAG, "onResume: Delay finished after action, attempting to startRecognitionSafely.");
-                    startRecognitionSafely();
+                    VLog.i(TAG, "onResume: Delay finished after action, running queued commands / restarting.");
+                    onActionFinished(0, "onResume_after_action");
                 } else {
-                    Log.w(TAG, "onResume: Activity not resumed when delayed restart after action was to execute.");
+                    VLog.w(TAG, "onResume: Activity not resumed when delayed restart after action was to execute.");
                 }
             }, 500);
 
@@ -852,18 +1642,43 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                 == PackageManager.PERMISSION_GRANTED) {
             // Normal resume - start/restart recognition
             if (!isRecognizerReady && !isRecognizerInitializing) {
-                Log.i(TAG, "onResume: Recognizer not ready and not initializing. Initializing now.");
+                VLog.i(TAG, "onResume: Recognizer not ready and not initializing. Initializing now.");
                 initializeRecognizer();
             } else if (isRecognizerReady) {
-                Log.i(TAG, "onResume: Recognizer ready. Ensuring listening is active.");
+                VLog.i(TAG, "onResume: Recognizer ready. Ensuring listening is active.");
                 startRecognitionSafely();
             } else {
-                Log.i(TAG, "onResume: Recognizer is currently initializing. Will start when ready via its own callback.");
+                VLog.i(TAG, "onResume: Recognizer is currently initializing. Will start when ready via its own callback.");
             }
         } else {
-            Log.w(TAG, "onResume: Microphone permission not granted. Cannot start recognizer.");
+            VLog.w(TAG, "onResume: Microphone permission not granted. Cannot start recognizer.");
             updateStatus(getString(R.string.status_permission_needed_resume));
         }
+
+        // A command the background service heard while we were away
+        if (pendingServiceCommand != null && !isActionPending) {
+            final String command = pendingServiceCommand;
+            pendingServiceCommand = null;
+            mainHandler.post(() -> {
+                if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                    VLog.i(TAG, "onResume: Running command from background service: '{}'", command);
+                    List<CommandIntent> batch = CommandIntent.parseChain(command);
+                    if (batch != null) {
+                        runCommandBatch(batch, command);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * SERVICE NOTIFICATION BROUGHT US TO FRONT (singleTop) with a command
+     */
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        takeServiceCommand(intent); // Runs in the onResume that follows
     }
 
     /**
@@ -875,22 +1690,24 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     protected void onPause() {
         super.onPause();
-        Log.i(TAG, "onPause called. isActionPending: " + isActionPending +
-                " (reflects state BEFORE this pause was triggered)");
+        VLog.i(TAG, "onPause called. isActionPending: {} (reflects state BEFORE this pause was triggered)", isActionPending);
 
         // Clear all pending operations
         mainHandler.removeCallbacksAndMessages(null);
-        Log.d(TAG, "Cleared all pending Runnables from mainHandler in onPause.");
+        VLog.d(TAG, "Cleared all pending Runnables from mainHandler in onPause.");
 
         cancelFinalResultTimeout();
 
         // Stop recognition (safe to call multiple times)
         stopRecognition();
 
+        // Going idle: persist the learned CMN / noise state
+        acousticState.snapshot();
+
         // Stop TTS if speaking
         if (tts != null && tts.isSpeaking()) {
             tts.stop();
-            Log.d(TAG, "TTS stopped in onPause because it was speaking.");
+            VLog.d(TAG, "TTS stopped in onPause because it was speaking.");
         }
         // Note: isActionPending is NOT reset here - used by onResume to detect return from camera
     }
@@ -904,13 +1721,20 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        Log.i(TAG, "onDestroy called. Releasing resources.");
+        VLog.i(TAG, "onDestroy called. Releasing resources.");
 
         // Clean up everything
         cancelFinalResultTimeout();
+        VoiceListeningService.setListener(null);
         if (mainHandler != null) {
             mainHandler.removeCallbacksAndMessages(null);
         }
+        if (actionExecutor != null) {
+            actionExecutor.stop();
+        }
+        if (acousticState != null) {
+            acousticState.snapshot();
+        }
 
         // Shutdown TTS
         if (tts != null) {
@@ -918,26 +1742,44 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
             tts.shutdown();
             tts = null;
             isTtsReady = false;
-            Log.d(TAG, "TTS engine shut down.");
+            VLog.d(TAG, "TTS engine shut down.");
         }
 
-        // Shutdown recognizer on background thread (can be slow)
+        // Detach from the recognizer; it stays warm in DecoderCache across recreation
         if (recognizer != null) {
-            final SpeechRecognizer localRecognizer = recognizer;
+            recognizer.removeListener(this);
+            try {
+                recognizer.cancel();
+            } catch (Exception e) {
+                VLog.w(TAG, "Exception cancelling recognizer in onDestroy: {}", e.getMessage());
+            }
             recognizer = null;
             isRecognizerReady = false;
             isRecognizerInitializing = false;
+        }
 
-            new Thread(() -> {
-                try {
-                    Log.d(TAG, "Attempting recognizer shutdown on background thread...");
-                    localRecognizer.cancel();
-                    localRecognizer.shutdown();
-                    Log.i(TAG, "PocketSphinx recognizer shut down successfully on background thread.");
-                } catch (Exception e) {
-                    Log.e(TAG, "Exception during recognizer shutdown on background thread: " + e.getMessage(), e);
-                }
-            }).start();
+        // Leaving the app for good: shut down every cached recognizer (after queued decoder work),
+        // unless the background service is still using one
+        if (isFinishing() && !VoiceListeningService.isRunning()) {
+            final DecoderCache cache = DecoderCache.getInstance(this);
+            decoderWorker.run(cache::clear);
+            VLog.i(TAG, "Activity finishing: decoder cache clear queued.");
+        }
+    }
+
+    /**
+     * MEMORY PRESSURE
+     *
+     * Drops every cached language except the active one.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && activeBundle != null) {
+            VLog.i(TAG, "onTrimMemory({}): trimming decoder cache to '{}'.", level, activeBundle.tag);
+            final String keepTag = activeBundle.tag;
+            final DecoderCache cache = DecoderCache.getInstance(this);
+            decoderWorker.run(() -> cache.trimTo(keepTag)); // Not under a running re-decode
         }
     }
 }
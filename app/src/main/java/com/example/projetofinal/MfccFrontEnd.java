@@ -0,0 +1,249 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.Arrays; // Noise frame percentile
+
+/**
+ * MFCC FRONT END - Java mirror of the PocketSphinx feature extraction
+ *
+ * The decoder's own front end isn't reachable through the Java bindings, so
+ * anything that needs cepstra (CMN seeding, adaptation) recomputes them here
+ * from raw utterance audio. Parameters follow the bundle's feat.params and
+ * the sphinxbase defaults for 16 kHz audio:
+ * - Pre-emphasis 0.97, 410-sample Hamming window, 160-sample shift (100 fps)
+ * - 512-point FFT, 25 triangular unit-area mel filters from 130 to 6800 Hz
+ * - Natural log, orthogonal DCT-II (13 cepstra), sine lifter 22
+ *
+ * Noise removal (-remove_noise) is only approximated, and only on request
+ * (removeNoise): the noise power per mel band is taken from the quietest
+ * frames of the utterance and subtracted, down to a spectral floor. Values
+ * are close to, not identical with, what the decoder sees. That is enough
+ * for a starting estimate the decoder then keeps adapting.
+ *
+ * Instances are not thread-safe (scratch buffers are reused).
+ */
+final class MfccFrontEnd {
+
+    static final int NUM_CEPSTRA = 13;
+    static final int FRAME_SHIFT = 160;
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_LENGTH = 410;
+    private static final int FFT_SIZE = 512;
+    private static final int NUM_FILTERS = 25;
+    private static final double LOWER_FREQ_HZ = 130;
+    private static final double UPPER_FREQ_HZ = 6800;
+    private static final double PRE_EMPHASIS = 0.97;
+    private static final int LIFTER = 22;
+
+    // Log floor for empty filter bands / digital silence
+    private static final double LOG_FLOOR = 1e-10;
+    private static final float SILENCE_DB = -120f;
+
+    // Noise removal: noise = mean mel power of this quietest share of frames
+    private static final float NOISE_FRAME_SHARE = 0.1f;
+
+    // Noise removal never takes a band below this fraction of its power
+    private static final double SPECTRAL_FLOOR = 0.1;
+
+    /**
+     * Cepstra plus per-frame energy for one utterance
+     */
+    static final class Frames {
+        final float[][] cepstra; // [frame][NUM_CEPSTRA]
+        final float[] energyDb; // Frame energy in dBFS (before pre-emphasis)
+
+        Frames(float[][] cepstra, float[] energyDb) {
+            this.cepstra = cepstra;
+            this.energyDb = energyDb;
+        }
+
+        int size() {
+            return cepstra.length;
+        }
+    }
+
+    private final double[] window = new double[FRAME_LENGTH];
+    private final int[] filterStart = new int[NUM_FILTERS];
+    private final double[][] filterWeights = new double[NUM_FILTERS][];
+    private final double[][] dct = new double[NUM_CEPSTRA][NUM_FILTERS];
+    private final double[] lifter = new double[NUM_CEPSTRA];
+
+    // Scratch buffers
+    private final double[] real = new double[FFT_SIZE];
+    private final double[] imag = new double[FFT_SIZE];
+    private final double[] logMel = new double[NUM_FILTERS];
+
+    MfccFrontEnd() {
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            window[i] = 0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_LENGTH - 1));
+        }
+        buildMelFilters();
+        for (int i = 0; i < NUM_CEPSTRA; i++) {
+            double scale = Math.sqrt((i == 0 ? 1.0 : 2.0) / NUM_FILTERS);
+            for (int j = 0; j < NUM_FILTERS; j++) {
+                dct[i][j] = scale * Math.cos(Math.PI * i * (j + 0.5) / NUM_FILTERS);
+            }
+            lifter[i] = i == 0 ? 1.0 : 1.0 + (LIFTER / 2.0) * Math.sin(Math.PI * i / LIFTER);
+        }
+    }
+
+    /**
+     * FEATURES FOR THE FIRST count SAMPLES (16 kHz mono PCM)
+     */
+    Frames compute(short[] samples, int count) {
+        return compute(samples, count, false);
+    }
+
+    /**
+     * FEATURES FOR THE FIRST count SAMPLES, optionally with noise removal
+     */
+    Frames compute(short[] samples, int count, boolean removeNoise) {
+        int frames = count < FRAME_LENGTH ? 0 : 1 + (count - FRAME_LENGTH) / FRAME_SHIFT;
+        float[][] cepstra = new float[frames][NUM_CEPSTRA];
+        float[] energyDb = new float[frames];
+        double[][] melPower = new double[frames][NUM_FILTERS];
+
+        for (int f = 0; f < frames; f++) {
+            int offset = f * FRAME_SHIFT;
+            double energy = 0;
+            for (int i = 0; i < FRAME_LENGTH; i++) {
+                double sample = samples[offset + i];
+                double previous = offset + i > 0 ? samples[offset + i - 1] : 0;
+                energy += sample * sample;
+                real[i] = (sample - PRE_EMPHASIS * previous) * window[i];
+                imag[i] = 0;
+            }
+            for (int i = FRAME_LENGTH; i < FFT_SIZE; i++) {
+                real[i] = 0;
+                imag[i] = 0;
+            }
+            double meanSquare = energy / FRAME_LENGTH / (32768.0 * 32768.0);
+            energyDb[f] = meanSquare > 0 ? (float) Math.max(SILENCE_DB, 10 * Math.log10(meanSquare)) : SILENCE_DB;
+
+            fft(real, imag);
+
+            for (int m = 0; m < NUM_FILTERS; m++) {
+                double sum = 0;
+                double[] weights = filterWeights[m];
+                for (int k = 0; k < weights.length; k++) {
+                    int bin = filterStart[m] + k;
+                    sum += weights[k] * (real[bin] * real[bin] + imag[bin] * imag[bin]);
+                }
+                melPower[f][m] = sum;
+            }
+        }
+
+        double[] noise = removeNoise ? noisePower(melPower, energyDb) : null;
+        for (int f = 0; f < frames; f++) {
+            for (int m = 0; m < NUM_FILTERS; m++) {
+                double power = melPower[f][m];
+                if (noise != null) power = Math.max(power - noise[m], SPECTRAL_FLOOR * power);
+                logMel[m] = Math.log(Math.max(power, LOG_FLOOR));
+            }
+            for (int i = 0; i < NUM_CEPSTRA; i++) {
+                double c = 0;
+                for (int j = 0; j < NUM_FILTERS; j++) {
+                    c += dct[i][j] * logMel[j];
+                }
+                cepstra[f][i] = (float) (c * lifter[i]);
+            }
+        }
+        return new Frames(cepstra, energyDb);
+    }
+
+    /**
+     * MEAN MEL POWER OF THE QUIETEST FRAMES (the utterance's noise estimate)
+     */
+    private static double[] noisePower(double[][] melPower, float[] energyDb) {
+        double[] noise = new double[NUM_FILTERS];
+        if (energyDb.length == 0) return noise;
+        float[] sorted = energyDb.clone();
+        Arrays.sort(sorted);
+        float threshold = sorted[(int) ((sorted.length - 1) * NOISE_FRAME_SHARE)];
+        int used = 0;
+        for (int f = 0; f < melPower.length; f++) {
+            if (energyDb[f] > threshold) continue;
+            for (int m = 0; m < NUM_FILTERS; m++) noise[m] += melPower[f][m];
+            used++;
+        }
+        for (int m = 0; m < NUM_FILTERS; m++) noise[m] /= used;
+        return noise;
+    }
+
+    /**
+     * TRIANGULAR MEL FILTERS, equally spaced on the mel scale, unit area
+     */
+    private void buildMelFilters() {
+        double lowMel = toMel(LOWER_FREQ_HZ);
+        double highMel = toMel(UPPER_FREQ_HZ);
+        double melStep = (highMel - lowMel) / (NUM_FILTERS + 1);
+        double binHz = (double) SAMPLE_RATE / FFT_SIZE;
+
+        for (int m = 0; m < NUM_FILTERS; m++) {
+            double left = fromMel(lowMel + m * melStep);
+            double center = fromMel(lowMel + (m + 1) * melStep);
+            double right = fromMel(lowMel + (m + 2) * melStep);
+            double height = 2.0 / (right - left);
+
+            int first = (int) Math.ceil(left / binHz);
+            int last = Math.min(FFT_SIZE / 2, (int) Math.floor(right / binHz));
+            double[] weights = new double[Math.max(0, last - first + 1)];
+            for (int bin = first; bin <= last; bin++) {
+                double hz = bin * binHz;
+                double slope = hz < center ? (hz - left) / (center - left) : (right - hz) / (right - center);
+                weights[bin - first] = Math.max(0, slope) * height;
+            }
+            filterStart[m] = first;
+            filterWeights[m] = weights;
+        }
+    }
+
+    private static double toMel(double hz) {
+        return 2595.0 * Math.log10(1.0 + hz / 700.0);
+    }
+
+    private static double fromMel(double mel) {
+        return 700.0 * (Math.pow(10.0, mel / 2595.0) - 1.0);
+    }
+
+    /**
+     * In-place iterative radix-2 FFT (length must be a power of two)
+     */
+    private static void fft(double[] re, double[] im) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            double angle = -2 * Math.PI / len;
+            double stepRe = Math.cos(angle);
+            double stepIm = Math.sin(angle);
+            for (int start = 0; start < n; start += len) {
+                double wRe = 1;
+                double wIm = 0;
+                for (int k = 0; k < len / 2; k++) {
+                    int a = start + k;
+                    int b = a + len / 2;
+                    double bRe = re[b] * wRe - im[b] * wIm;
+                    double bIm = re[b] * wIm + im[b] * wRe;
+                    re[b] = re[a] - bRe;
+                    im[b] = im[a] - bIm;
+                    re[a] += bRe;
+                    im[a] += bIm;
+                    double nextRe = wRe * stepRe - wIm * stepIm;
+                    wIm = wRe * stepIm + wIm * stepRe;
+                    wRe = nextRe;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // Transform output
+import java.io.FileOutputStream; // Transform output
+import java.io.IOException; // For file error handling
+import java.io.OutputStreamWriter; // Transform output
+import java.io.Writer; // Transform output
+import java.nio.charset.StandardCharsets; // Transform output
+import java.util.Arrays; // Viterbi initialisation
+import java.util.List; // Utterance batches
+import java.util.Locale; // Number formatting
+
+/**
+ * MLLR ESTIMATOR - Speaker/environment bias transform from collected utterances
+ *
+ * Estimates a single-class, bias-only MLLR transform (A = I, h = 1) in the
+ * format PocketSphinx reads with -mllr:
+ * 1. Features: MfccFrontEnd cepstra with (approximate) noise removal, one
+ *    cepstral mean over the whole corpus, deltas as in 1s_c_d_dd. This is
+ *    what the decoder sees: -remove_noise is on, and live CMN normalizes
+ *    by a long-running mean rather than each utterance's own.
+ * 2. Alignment: Viterbi over SIL + transcript phones + SIL, each phone a
+ *    3-state left-to-right chain scored by its PTM codebook (best density
+ *    per stream).
+ * 3. Bias: precision-weighted mean of (observation - aligned mean) over all
+ *    non-silence frames, per stream and dimension.
+ * 4. Validation: every HOLDOUT_EVERY-th utterance is left out of steps 2-3.
+ *    Those are re-aligned with and without the bias (applied to every
+ *    density, as the decoder does), and the transform is only written if
+ *    the held-out fit improves by MIN_GAIN_PER_FRAME.
+ *
+ * A full A matrix needs far more data than a handful of voice commands
+ * provides; a bias already captures most of the channel + speaker offset.
+ *
+ * CPU heavy: run from a background job only.
+ */
+final class MllrEstimator {
+
+    private static final String TAG = "MllrEstimator_SLATE";
+
+    private static final String SILENCE_PHONE = "SIL";
+
+    // States per phone in the alignment chain (= minimum frames per phone)
+    private static final int STATES_PER_PHONE = 3;
+
+    // Below this many aligned speech frames the estimate is too noisy to use
+    private static final int MIN_SPEECH_FRAMES = 400;
+
+    // Largest bias (in standard deviations of the average density) we trust
+    private static final double MAX_BIAS_STDDEV = 1.5;
+
+    // Every n-th utterance is held out to validate the transform
+    private static final int HOLDOUT_EVERY = 4;
+
+    // Below this many held-out frames the validation means nothing
+    private static final int MIN_HELDOUT_FRAMES = 200;
+
+    // Held-out log-likelihood gain per frame required to write the transform
+    static final double MIN_GAIN_PER_FRAME = 0.1;
+
+    /**
+     * One collected utterance: 16 kHz PCM + its CI phone transcription
+     */
+    static final class Utterance {
+        final short[] audio;
+        final String[] phones; // Without the surrounding silences
+
+        Utterance(short[] audio, String[] phones) {
+            this.audio = audio;
+            this.phones = phones;
+        }
+    }
+
+    /**
+     * Outcome of an estimation
+     */
+    static final class Result {
+        final boolean written;
+        final int speechFrames;
+        final double gainPerFrame; // Held-out log-likelihood gain of the transform
+        final String reason;
+
+        Result(boolean written, int speechFrames, double gainPerFrame, String reason) {
+            this.written = written;
+            this.speechFrames = speechFrames;
+            this.gainPerFrame = gainPerFrame;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return (written ? "written" : "skipped (" + reason + ")") + ", " + speechFrames +
+                    " speech frames, gain " + String.format(Locale.US, "%.3f", gainPerFrame) + "/frame";
+        }
+    }
+
+    private final PtmModel model;
+    private final MfccFrontEnd frontEnd = new MfccFrontEnd();
+    private final int silenceCodebook;
+
+    // Precomputed per [codebook][stream][density]: 1/variance and sum(log variance)
+    private final float[][][][] precision;
+    private final double[][][] logDet;
+
+    // Accumulators: sum(prec * diff) and sum(prec), per stream and dimension
+    private final double[][] weightedDiff;
+    private final double[][] weightSum;
+    private int speechFrames;
+
+    MllrEstimator(PtmModel model) {
+        this.model = model;
+        this.silenceCodebook = model.codebookOf(SILENCE_PHONE);
+        this.precision = new float[model.numCodebooks][model.numStreams][model.numDensities][];
+        this.logDet = new double[model.numCodebooks][model.numStreams][model.numDensities];
+        for (int c = 0; c < model.numCodebooks; c++) {
+            for (int s = 0; s < model.numStreams; s++) {
+                for (int d = 0; d < model.numDensities; d++) {
+                    float[] variance = model.variances[c][s][d];
+                    float[] inverse = new float[variance.length];
+                    double log = 0;
+                    for (int i = 0; i < variance.length; i++) {
+                        inverse[i] = 1f / variance[i];
+                        log += Math.log(variance[i]);
+                    }
+                    precision[c][s][d] = inverse;
+                    logDet[c][s][d] = log;
+                }
+            }
+        }
+        weightedDiff = new double[model.numStreams][];
+        weightSum = new double[model.numStreams][];
+        for (int s = 0; s < model.numStreams; s++) {
+            weightedDiff[s] = new double[model.streamLength[s]];
+            weightSum[s] = new double[model.streamLength[s]];
+        }
+    }
+
+    /**
+     * ESTIMATE AND (IF IT HELPS) WRITE THE TRANSFORM
+     */
+    Result estimate(List<Utterance> utterances, File output) throws IOException {
+        if (silenceCodebook < 0) {
+            return new Result(false, 0, 0, "model has no " + SILENCE_PHONE + " phone");
+        }
+
+        float[][][][] features = features(utterances);
+        int[][] chains = new int[utterances.size()][];
+        for (int u = 0; u < utterances.size(); u++) {
+            chains[u] = phoneChain(utterances.get(u).phones);
+        }
+
+        // Pass 1: align the training utterances and accumulate bias statistics
+        for (int u = 0; u < utterances.size(); u++) {
+            if (isHeldOut(u) || chains[u] == null) continue;
+            int[] path = new int[features[u].length];
+            if (align(features[u], chains[u], null, path) > Double.NEGATIVE_INFINITY) {
+                accumulate(features[u], path);
+            }
+        }
+        if (speechFrames < MIN_SPEECH_FRAMES) {
+            return new Result(false, speechFrames, 0, "not enough speech");
+        }
+
+        float[][] bias = new float[model.numStreams][];
+        for (int s = 0; s < model.numStreams; s++) {
+            bias[s] = new float[model.streamLength[s]];
+            for (int i = 0; i < bias[s].length; i++) {
+                double value = weightedDiff[s][i] / weightSum[s][i];
+                double limit = MAX_BIAS_STDDEV * Math.sqrt(speechFrames / weightSum[s][i]);
+                bias[s][i] = (float) Math.max(-limit, Math.min(limit, value));
+            }
+        }
+
+        // Pass 2: the transform must improve the fit on utterances it has not seen
+        double before = 0;
+        double after = 0;
+        int heldOutFrames = 0;
+        for (int u = 0; u < utterances.size(); u++) {
+            if (!isHeldOut(u) || chains[u] == null) continue;
+            int[] path = new int[features[u].length];
+            double plain = align(features[u], chains[u], null, path);
+            double adapted = align(features[u], chains[u], bias, path);
+            if (plain == Double.NEGATIVE_INFINITY || adapted == Double.NEGATIVE_INFINITY) continue;
+            before += plain;
+            after += adapted;
+            heldOutFrames += features[u].length;
+        }
+        if (heldOutFrames < MIN_HELDOUT_FRAMES) {
+            return new Result(false, speechFrames, 0, "not enough held-out speech");
+        }
+        double gain = (after - before) / heldOutFrames;
+        if (gain < MIN_GAIN_PER_FRAME) {
+            return new Result(false, speechFrames, gain, "no held-out likelihood gain");
+        }
+
+        write(bias, output);
+        return new Result(true, speechFrames, gain, null);
+    }
+
+    /**
+     * Codebook per chain state: SIL, transcript phones, SIL (null if a phone is unknown)
+     */
+    private int[] phoneChain(String[] phones) {
+        int[] chain = new int[(phones.length + 2) * STATES_PER_PHONE];
+        int position = 0;
+        for (int p = -1; p <= phones.length; p++) {
+            int codebook = p < 0 || p == phones.length ? silenceCodebook : model.codebookOf(phones[p]);
+            if (codebook < 0) {
+                VLog.w(TAG, "Unknown phone '{}'; utterance skipped.", phones[p]);
+                return null;
+            }
+            for (int k = 0; k < STATES_PER_PHONE; k++) {
+                chain[position++] = codebook;
+            }
+        }
+        return chain;
+    }
+
+    private static boolean isHeldOut(int utterance) {
+        return utterance % HOLDOUT_EVERY == HOLDOUT_EVERY - 1;
+    }
+
+    /**
+     * 1s_c_d_dd FEATURES of every utterance: [utterance][frame][stream][dim]
+     */
+    private float[][][][] features(List<Utterance> utterances) {
+        int dims = MfccFrontEnd.NUM_CEPSTRA;
+        float[][][] cepstra = new float[utterances.size()][][];
+        double[] sum = new double[dims];
+        long frames = 0;
+        for (int u = 0; u < utterances.size(); u++) {
+            short[] audio = utterances.get(u).audio;
+            cepstra[u] = frontEnd.compute(audio, audio.length, true).cepstra;
+            for (float[] frame : cepstra[u]) {
+                for (int i = 0; i < dims; i++) sum[i] += frame[i];
+            }
+            frames += cepstra[u].length;
+        }
+
+        // One mean for the corpus (live CMN carries its mean across utterances)
+        float[] mean = new float[dims];
+        for (int i = 0; i < dims && frames > 0; i++) mean[i] = (float) (sum[i] / frames);
+
+        float[][][][] out = new float[utterances.size()][][][];
+        for (int u = 0; u < utterances.size(); u++) {
+            for (float[] frame : cepstra[u]) {
+                for (int i = 0; i < dims; i++) frame[i] -= mean[i];
+            }
+            out[u] = deltas(cepstra[u]);
+        }
+        return out;
+    }
+
+    /**
+     * Static + delta + delta-delta streams of normalized cepstra: [frame][stream][dim]
+     */
+    private static float[][][] deltas(float[][] cepstra) {
+        int frames = cepstra.length;
+        int dims = MfccFrontEnd.NUM_CEPSTRA;
+        float[][][] out = new float[frames][3][dims];
+        for (int t = 0; t < frames; t++) {
+            float[] c = cepstra[t];
+            float[] plus1 = cepstra[clamp(t + 1, frames)];
+            float[] plus2 = cepstra[clamp(t + 2, frames)];
+            float[] plus3 = cepstra[clamp(t + 3, frames)];
+            float[] minus1 = cepstra[clamp(t - 1, frames)];
+            float[] minus2 = cepstra[clamp(t - 2, frames)];
+            float[] minus3 = cepstra[clamp(t - 3, frames)];
+            for (int i = 0; i < dims; i++) {
+                out[t][0][i] = c[i];
+                out[t][1][i] = plus2[i] - minus2[i];
+                out[t][2][i] = (plus3[i] - minus1[i]) - (plus1[i] - minus3[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * VITERBI ALIGNMENT (means shifted by bias if given)
+     *
+     * Fills pathOut with the codebook per frame and returns the path's
+     * log-likelihood, or NEGATIVE_INFINITY if the utterance is too short.
+     */
+    private double align(float[][][] features, int[] chain, float[][] bias, int[] pathOut) {
+        int frames = features.length;
+        int states = chain.length;
+        if (frames < states) return Double.NEGATIVE_INFINITY;
+
+        // Emission scores are shared by all states of a phone
+        double[][] emission = new double[frames][model.numCodebooks];
+        boolean[] needed = new boolean[model.numCodebooks];
+        for (int codebook : chain) needed[codebook] = true;
+        for (int t = 0; t < frames; t++) {
+            for (int c = 0; c < model.numCodebooks; c++) {
+                if (needed[c]) emission[t][c] = frameLogLikelihood(features[t], c, bias, null);
+            }
+        }
+
+        double[] score = new double[states];
+        double[] next = new double[states];
+        byte[][] advanced = new byte[frames][states];
+        Arrays.fill(score, Double.NEGATIVE_INFINITY);
+        score[0] = emission[0][chain[0]];
+        for (int t = 1; t < frames; t++) {
+            for (int s = 0; s < states; s++) {
+                double stay = score[s];
+                double enter = s > 0 ? score[s - 1] : Double.NEGATIVE_INFINITY;
+                advanced[t][s] = (byte) (enter > stay ? 1 : 0);
+                next[s] = Math.max(stay, enter) + emission[t][chain[s]];
+            }
+            double[] swap = score;
+            score = next;
+            next = swap;
+        }
+        if (score[states - 1] == Double.NEGATIVE_INFINITY) return Double.NEGATIVE_INFINITY;
+
+        int state = states - 1;
+        for (int t = frames - 1; t >= 0; t--) {
+            pathOut[t] = chain[state];
+            if (t > 0 && advanced[t][state] == 1) state--;
+        }
+        return score[states - 1];
+    }
+
+    private void accumulate(float[][][] features, int[] path) {
+        int[] best = new int[model.numStreams];
+        for (int t = 0; t < path.length; t++) {
+            int codebook = path[t];
+            if (codebook == silenceCodebook) continue;
+            frameLogLikelihood(features[t], codebook, null, best);
+            for (int s = 0; s < model.numStreams; s++) {
+                float[] mean = model.means[codebook][s][best[s]];
+                float[] prec = precision[codebook][s][best[s]];
+                float[] observation = features[t][s];
+                for (int i = 0; i < mean.length; i++) {
+                    weightedDiff[s][i] += prec[i] * (observation[i] - mean[i]);
+                    weightSum[s][i] += prec[i];
+                }
+            }
+            speechFrames++;
+        }
+    }
+
+    /**
+     * Sum over streams of the best density's log-likelihood (means shifted by bias if given)
+     */
+    private double frameLogLikelihood(float[][] frame, int codebook, float[][] bias, int[] bestOut) {
+        double total = 0;
+        for (int s = 0; s < model.numStreams; s++) {
+            float[] observation = frame[s];
+            double best = Double.NEGATIVE_INFINITY;
+            int bestIndex = 0;
+            for (int d = 0; d < model.numDensities; d++) {
+                float[] mean = model.means[codebook][s][d];
+                float[] prec = precision[codebook][s][d];
+                double distance = logDet[codebook][s][d];
+                for (int i = 0; i < mean.length; i++) {
+                    double diff = observation[i] - mean[i] - (bias != null ? bias[s][i] : 0);
+                    distance += diff * diff * prec[i];
+                }
+                if (-0.5 * distance > best) {
+                    best = -0.5 * distance;
+                    bestIndex = d;
+                }
+            }
+            total += best;
+            if (bestOut != null) bestOut[s] = bestIndex;
+        }
+        return total;
+    }
+
+    /**
+     * PocketSphinx MLLR file: nclass, nfeat, then per stream: veclen, A, b, h
+     */
+    private void write(float[][] bias, File output) throws IOException {
+        File temp = new File(output.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.US_ASCII)) {
+            writer.write("1\n" + model.numStreams + "\n");
+            for (int s = 0; s < model.numStreams; s++) {
+                int length = bias[s].length;
+                writer.write(length + "\n");
+                StringBuilder block = new StringBuilder();
+                for (int row = 0; row < length; row++) {
+                    for (int col = 0; col < length; col++) {
+                        block.append(row == col ? "1.0 " : "0.0 ");
+                    }
+                    block.append('\n');
+                }
+                for (int i = 0; i < length; i++) {
+                    block.append(String.format(Locale.US, "%.6f ", bias[s][i]));
+                }
+                block.append('\n');
+                for (int i = 0; i < length; i++) {
+                    block.append("1.0 ");
+                }
+                block.append('\n');
+                writer.write(block.toString());
+            }
+        }
+        if (!temp.renameTo(output)) {
+            throw new IOException("Could not move transform into place: " + output.getAbsolutePath());
+        }
+    }
+
+    private static int clamp(int index, int length) {
+        return index < 0 ? 0 : (index >= length ? length - 1 : index);
+    }
+}
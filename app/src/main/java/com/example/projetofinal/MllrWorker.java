@@ -0,0 +1,67 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // Worker context
+
+// ANDROIDX (SUPPORT LIBRARY) IMPORTS
+import androidx.annotation.NonNull; // For null parameter checks
+import androidx.work.Worker; // Background job base class
+import androidx.work.WorkerParameters; // Worker input
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // Model / transform locations
+import java.io.IOException; // For file error handling
+import java.util.List; // Corpus
+
+/**
+ * MLLR WORKER - Background job that turns the collected corpus into a transform
+ *
+ * Queued by SpeakerAdaptation with idle + charging constraints. Loads the
+ * PTM model, runs MllrEstimator over the profile's corpus and writes the
+ * transform next to it; the next decoder build picks it up.
+ */
+public class MllrWorker extends Worker {
+
+    private static final String TAG = "MllrWorker_SLATE";
+
+    static final String KEY_PROFILE = "profile";
+    static final String KEY_LOCALE = "locale";
+    static final String KEY_MODEL_DIR = "model_dir";
+
+    public MllrWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String profile = getInputData().getString(KEY_PROFILE);
+        String localeTag = getInputData().getString(KEY_LOCALE);
+        String modelDir = getInputData().getString(KEY_MODEL_DIR);
+        if (profile == null || localeTag == null || modelDir == null) {
+            VLog.e(TAG, "Missing input data; nothing to do.");
+            return Result.failure();
+        }
+
+        Context context = getApplicationContext();
+        List<MllrEstimator.Utterance> corpus =
+                SpeakerAdaptation.loadCorpus(SpeakerAdaptation.corpusDir(context, profile, localeTag));
+        VLog.i(TAG, "Estimating MLLR for {}/{} from {} utterance(s).", profile, localeTag, corpus.size());
+
+        long start = System.currentTimeMillis();
+        try {
+            PtmModel model = PtmModel.load(new File(modelDir));
+            MllrEstimator.Result result = new MllrEstimator(model)
+                    .estimate(corpus, SpeakerAdaptation.transformFile(context, profile, localeTag));
+            VLog.i(TAG, "MLLR {} in {}ms.", result, System.currentTimeMillis() - start);
+            if (result.written) {
+                SpeakerAdaptation.recordTransform(context, profile, localeTag, result.gainPerFrame);
+            }
+            SpeakerAdaptation.markEstimated(context, profile, localeTag);
+            return Result.success();
+        } catch (IOException e) {
+            VLog.e(TAG, "MLLR estimation failed: {}", e.getMessage(), e);
+            return Result.failure();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.ArrayList; // Phone sequences
+import java.util.List; // Phone sequences
+import java.util.Locale; // Phone normalization
+import java.util.Map; // Phrase table
+
+/**
+ * PHONETIC MATCHER - Maps a phone-loop decode onto the nearest grammar phrase
+ *
+ * The grammar search can only output exact grammar phrases, so a near miss
+ * ("take a photo", a clipped "picture") comes back empty or with a poor
+ * score. A phone-loop (allphone) decode of the same audio has no such
+ * constraint. This class holds the phone sequence of every grammar phrase
+ * (from the decoder's own dictionary) and finds the phrase closest to the
+ * decoded phones by edit distance:
+ * - Distances are normalized by the phrase length, and a phrase is only
+ *   considered within MAX_NORMALIZED_DISTANCE (the edit distance
+ *   computation stops early once that bound can no longer be met).
+ * - The best phrase must beat the best phrase of any OTHER intent by
+ *   MIN_MARGIN, so ambiguous audio is still rejected.
+ *
+ * Single commands only; chains are left to the grammar search.
+ */
+final class PhoneticMatcher {
+
+    /**
+     * Dictionary lookup (Decoder.lookupWord in the app)
+     */
+    interface PronunciationSource {
+        String lookup(String word);
+    }
+
+    /**
+     * An accepted match
+     */
+    static final class Match {
+        final CommandIntent intent;
+        final String phrase;
+        final float distance; // Normalized edit distance of the best phrase
+        final float margin; // Distance gap to the best phrase of another intent
+
+        Match(CommandIntent intent, String phrase, float distance, float margin) {
+            this.intent = intent;
+            this.phrase = phrase;
+            this.distance = distance;
+            this.margin = margin;
+        }
+    }
+
+    /**
+     * One grammar phrase in the index
+     */
+    private static final class Entry {
+        final String phrase;
+        final CommandIntent intent;
+        final String[] phones;
+
+        Entry(String phrase, CommandIntent intent, String[] phones) {
+            this.phrase = phrase;
+            this.intent = intent;
+            this.phones = phones;
+        }
+    }
+
+    // ==================== MATCHING SETTINGS ====================
+
+    // Phrase accepted only within this many edits per phrase phone
+    private static final float MAX_NORMALIZED_DISTANCE = 0.34f;
+
+    // Required lead over the best phrase of a different intent
+    private static final float MIN_MARGIN = 0.15f;
+
+    // Allphone output that carries no speech
+    private static final String SILENCE_PHONE = "SIL";
+
+    private final List<Entry> entries;
+
+    private PhoneticMatcher(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * BUILD THE INDEX (phrases with an unknown word are left out)
+     */
+    static PhoneticMatcher build(PronunciationSource dictionary) {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, CommandIntent> phrase : CommandIntent.phraseTable().entrySet()) {
+            List<String> phones = new ArrayList<>();
+            boolean isComplete = true;
+            for (String word : phrase.getKey().split(" ")) {
+                String pronunciation = dictionary.lookup(word);
+                if (pronunciation == null) {
+                    isComplete = false;
+                    break;
+                }
+                for (String phone : pronunciation.trim().split("\\s+")) {
+                    phones.add(phone.toUpperCase(Locale.US));
+                }
+            }
+            if (isComplete) {
+                entries.add(new Entry(phrase.getKey(), phrase.getValue(), phones.toArray(new String[0])));
+            }
+        }
+        return new PhoneticMatcher(entries);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * SPEECH PHONES OF AN ALLPHONE HYPOTHESIS (silence and fillers removed)
+     */
+    static String[] speechPhones(String allphoneHypothesis) {
+        List<String> phones = new ArrayList<>();
+        if (allphoneHypothesis == null) return new String[0];
+        for (String phone : allphoneHypothesis.trim().split("\\s+")) {
+            // Fillers look like "+NSN+" / "+SPN+"
+            if (phone.isEmpty() || phone.equals(SILENCE_PHONE) || phone.startsWith("+")) continue;
+            phones.add(phone.toUpperCase(Locale.US));
+        }
+        return phones.toArray(new String[0]);
+    }
+
+    /**
+     * NEAREST PHRASE, or null if none is close enough or the lead is too small
+     */
+    Match match(String[] phones) {
+        if (phones.length == 0) return null;
+
+        Entry best = null;
+        float bestDistance = Float.MAX_VALUE;
+        float[] distances = new float[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int bound = (int) (MAX_NORMALIZED_DISTANCE * entry.phones.length + MIN_MARGIN * entry.phones.length);
+            int edits = boundedEditDistance(phones, entry.phones, bound);
+            distances[i] = (float) Math.min(edits, bound + 1) / entry.phones.length; // Past the bound: a lower bound
+            if (distances[i] < bestDistance) {
+                bestDistance = distances[i];
+                best = entry;
+            }
+        }
+        if (best == null || bestDistance > MAX_NORMALIZED_DISTANCE) return null;
+
+        float runnerUp = Float.MAX_VALUE;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).intent != best.intent) runnerUp = Math.min(runnerUp, distances[i]);
+        }
+        float margin = runnerUp - bestDistance;
+        if (margin < MIN_MARGIN) return null;
+        return new Match(best.intent, best.phrase, bestDistance, margin);
+    }
+
+    /**
+     * LEVENSHTEIN DISTANCE, or bound + 1 as soon as it must exceed bound
+     */
+    static int boundedEditDistance(String[] a, String[] b, int bound) {
+        if (Math.abs(a.length - b.length) > bound) return bound + 1;
+        int[] previous = new int[b.length + 1];
+        int[] current = new int[b.length + 1];
+        for (int j = 0; j <= b.length; j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length; j++) {
+                int substitution = previous[j - 1] + (a[i - 1].equals(b[j - 1]) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) return bound + 1; // Every path is already over the bound
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length], bound + 1);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // Model file locations
+import java.io.IOException; // For file error handling
+import java.io.RandomAccessFile; // Reading binary model files
+import java.nio.ByteBuffer; // Binary parsing
+import java.nio.ByteOrder; // Model files may be either endianness
+import java.nio.charset.StandardCharsets; // Header / phone names
+import java.util.ArrayList; // CI phone list
+import java.util.Collections; // Read-only views
+import java.util.HashMap; // Phone name -> index
+import java.util.List; // CI phone list
+import java.util.Map; // Phone name -> index
+
+/**
+ * PTM MODEL - The parts of a Sphinx phonetically-tied-mixture model needed in Java
+ *
+ * Reads the CI phone table from the binary mdef and the Gaussian codebooks
+ * (means + variances) of the bundle's acoustic model. In a PTM model there is
+ * one codebook per CI phone, so codebook i belongs to ciPhones().get(i).
+ * Mixture weights (sendump) are not loaded: callers score a frame against
+ * the best density of each stream.
+ */
+final class PtmModel {
+
+    private static final String MEANS_FILE = "means";
+    private static final String VARIANCES_FILE = "variances";
+
+    // s3 binary files: text header ends with this line, then a byte-order marker
+    private static final String S3_HEADER_END = "endhdr\n";
+    private static final int S3_BYTE_ORDER_MAGIC = 0x11223344;
+
+    // Binary mdef: "BMDF", version, description length, description, then counts + CI phone names
+    private static final String BMDF_MAGIC = "BMDF";
+    private static final String BMDF_MAGIC_SWAPPED = "FDMB";
+
+    final int numCodebooks;
+    final int numStreams;
+    final int numDensities;
+    final int[] streamLength; // Per stream (13 / 13 / 13 for 1s_c_d_dd with svspec)
+
+    // [codebook][stream][density][dimension]
+    final float[][][][] means;
+    final float[][][][] variances;
+
+    private final List<String> ciPhones;
+    private final Map<String, Integer> phoneIndex = new HashMap<>();
+
+    private PtmModel(List<String> ciPhones, float[][][][] means, float[][][][] variances) {
+        this.ciPhones = Collections.unmodifiableList(ciPhones);
+        this.means = means;
+        this.variances = variances;
+        this.numCodebooks = means.length;
+        this.numStreams = means[0].length;
+        this.numDensities = means[0][0].length;
+        this.streamLength = new int[numStreams];
+        for (int s = 0; s < numStreams; s++) {
+            streamLength[s] = means[0][s][0].length;
+        }
+        for (int i = 0; i < ciPhones.size(); i++) {
+            phoneIndex.put(ciPhones.get(i), i);
+        }
+    }
+
+    /**
+     * LOAD FROM A MODEL DIRECTORY (file I/O: background thread only)
+     */
+    static PtmModel load(File modelDir) throws IOException {
+        List<String> phones = readCiPhones(new File(modelDir, LocaleBundle.MODEL_DEFINITION_FILE));
+        float[][][][] means = readGaussians(new File(modelDir, MEANS_FILE));
+        float[][][][] variances = readGaussians(new File(modelDir, VARIANCES_FILE));
+
+        if (means.length != phones.size() || variances.length != means.length) {
+            throw new IOException("Not a PTM model: " + phones.size() + " CI phones, " + means.length +
+                    " mean / " + variances.length + " variance codebooks");
+        }
+        return new PtmModel(phones, means, variances);
+    }
+
+    List<String> ciPhones() {
+        return ciPhones;
+    }
+
+    /**
+     * Codebook index of a CI phone, or -1 if unknown
+     */
+    int codebookOf(String phone) {
+        Integer index = phoneIndex.get(phone);
+        return index != null ? index : -1;
+    }
+
+    private static List<String> readCiPhones(File mdef) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(readAll(mdef));
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        String magicText = new String(magic, StandardCharsets.US_ASCII);
+        // The magic is written as an int32, so its byte order tells the file's
+        if (BMDF_MAGIC.equals(magicText)) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (BMDF_MAGIC_SWAPPED.equals(magicText)) {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        } else {
+            throw new IOException("Unsupported mdef (expected binary BMDF): " + mdef.getName());
+        }
+
+        buffer.getInt(); // Format version
+        int descriptionLength = buffer.getInt();
+        buffer.position(buffer.position() + descriptionLength);
+
+        int numCiPhones = buffer.getInt();
+        buffer.position(buffer.position() + 9 * 4); // n_phone .. sil
+
+        List<String> phones = new ArrayList<>(numCiPhones);
+        StringBuilder name = new StringBuilder();
+        while (phones.size() < numCiPhones) {
+            byte b = buffer.get();
+            if (b == 0) {
+                phones.add(name.toString());
+                name.setLength(0);
+            } else {
+                name.append((char) b);
+            }
+        }
+        return phones;
+    }
+
+    /**
+     * s3 Gaussian parameter file: [codebook][stream][density][dimension]
+     */
+    private static float[][][][] readGaussians(File file) throws IOException {
+        byte[] bytes = readAll(file);
+        int dataStart = indexOf(bytes, S3_HEADER_END.getBytes(StandardCharsets.US_ASCII));
+        if (dataStart < 0) {
+            throw new IOException("Missing s3 header in " + file.getName());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, dataStart + S3_HEADER_END.length(),
+                bytes.length - dataStart - S3_HEADER_END.length()).order(ByteOrder.LITTLE_ENDIAN);
+        int magic = buffer.getInt();
+        if (magic != S3_BYTE_ORDER_MAGIC) {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (Integer.reverseBytes(magic) != S3_BYTE_ORDER_MAGIC) {
+                throw new IOException("Bad byte-order marker in " + file.getName());
+            }
+        }
+
+        int codebooks = buffer.getInt();
+        int streams = buffer.getInt();
+        int densities = buffer.getInt();
+        int[] lengths = new int[streams];
+        int perDensity = 0;
+        for (int s = 0; s < streams; s++) {
+            lengths[s] = buffer.getInt();
+            perDensity += lengths[s];
+        }
+        int total = buffer.getInt();
+        if (total != codebooks * densities * perDensity) {
+            throw new IOException("Inconsistent parameter count in " + file.getName());
+        }
+
+        float[][][][] values = new float[codebooks][streams][densities][];
+        for (int c = 0; c < codebooks; c++) {
+            for (int s = 0; s < streams; s++) {
+                for (int d = 0; d < densities; d++) {
+                    float[] vector = new float[lengths[s]];
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] = buffer.getFloat();
+                    }
+                    values[c][s][d] = vector;
+                }
+            }
+        }
+        return values;
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= haystack.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // For caches / stores
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // For model file locations
+import java.io.IOException; // For file error handling
+import java.util.Arrays; // Trimming utterance audio
+
+// POCKETSPHINX (SPEECH RECOGNITION) IMPORTS
+import edu.cmu.pocketsphinx.Decoder; // For the phone-loop decode
+import edu.cmu.pocketsphinx.Hypothesis; // Phone-loop result
+import edu.cmu.pocketsphinx.SpeechRecognizer; // Main recognition engine
+import edu.cmu.pocketsphinx.SpeechRecognizerSetup; // For configuring recognizer
+
+/**
+ * RECOGNIZER FACTORY - One place that builds (or reuses) the recognizer for a bundle
+ *
+ * Shared by MainActivity and VoiceListeningService so both get the same,
+ * cached engine with the same configuration:
+ * - Live CMN seeded from AcousticStateStore
+ * - The profile's MLLR transform (and narrower beams) from SpeakerAdaptation
+ * - The command grammar search (with GrammarPriors usage weights) plus a
+ *   wake-phrase keyword search
+ * - A phone-loop search for the phonetic fallback (decodePhones())
+ *
+ * acquire() does file I/O and may build a model: call it off the main thread.
+ */
+final class RecognizerFactory {
+
+    private static final String TAG = "RecognizerFactory_SLATE";
+
+    // Name for the grammar search (matches the .gram file)
+    static final String GRAMMAR_SEARCH_NAME = "commands";
+
+    // Keyword search used by the background service's wake-phrase mode
+    static final String WAKE_SEARCH_NAME = "wakeup";
+    static final String WAKE_PHRASE = "hey camera";
+
+    // Phone-loop search: re-decodes a rejected utterance for PhoneticMatcher
+    static final String PHONE_SEARCH_NAME = "phones";
+
+    // Hypotheses scoring at or below this are treated as unclear audio (per command; see minAcceptedScore)
+    private static final int MIN_ACCEPTED_SCORE = -7000;
+
+    // Keyword spotting threshold for the wake phrase (lower = more sensitive)
+    private static final float WAKE_KEYWORD_THRESHOLD = 1e-20f;
+
+    // Utterance audio kept by the decoder for CMN estimation / adaptation (20 s at 16 kHz)
+    private static final int UTTERANCE_RAWDATA_SAMPLES = 16000 * 20;
+
+    // Audio rate of the acoustic models (16 kHz)
+    private static final int SAMPLES_PER_MS = 16;
+
+    // Audio kept before the first speech of an utterance (noise floor, VAD onset delay)
+    private static final long UTTERANCE_LEAD_MS = 500;
+
+    // Beams used with a transform that fits well (defaults: 1e-48 / 1e-48 / 7e-29)
+    private static final double ADAPTED_BEAM = 1e-40;
+    private static final double ADAPTED_WORD_BEAM = 1e-24;
+
+    private RecognizerFactory() {
+    }
+
+    /**
+     * SCORE BAR FOR AN UTTERANCE OF chainedCommands COMMANDS
+     *
+     * The best score is a log-likelihood summed over every frame, so a
+     * chain of n commands scores roughly n times lower than one command
+     * spoken as clearly. The bar scales the same way.
+     */
+    static int minAcceptedScore(int chainedCommands) {
+        return MIN_ACCEPTED_SCORE * Math.max(1, chainedCommands);
+    }
+
+    /**
+     * WARM RECOGNIZER FROM THE CACHE, or sync + build this bundle only
+     */
+    static SpeechRecognizer acquire(Context context, LocaleAssets localeAssets, LocaleBundle bundle) throws IOException {
+        final Context appContext = context.getApplicationContext();
+        return DecoderCache.getInstance(appContext).acquire(bundle.tag, new DecoderCache.Builder() {
+            private File syncRoot;
+
+            @Override
+            public SpeechRecognizer build() throws IOException {
+                syncRoot = localeAssets.sync(bundle, WAKE_PHRASE);
+                return buildRecognizer(appContext, bundle, syncRoot, localeAssets.readGrammar(bundle));
+            }
+
+            @Override
+            public long footprintBytes() {
+                return LocaleAssets.estimateFootprintBytes(bundle, syncRoot);
+            }
+        });
+    }
+
+    /**
+     * BUILD A RECOGNIZER FOR ONE BUNDLE (background thread, cache miss only)
+     *
+     * Sets up PocketSphinx with the bundle's acoustic model, (trimmed)
+     * dictionary and command grammar (with usage weights, see loadGrammar).
+     *
+     * @param grammar shipped JSGF text, read in place from the APK
+     */
+    private static SpeechRecognizer buildRecognizer(Context context, LocaleBundle bundle, File syncRoot, String grammar) throws IOException {
+        // Define paths to model files
+        File acousticModelDir = bundle.modelDir(syncRoot); // Sound recognition model
+        File dictionaryFile = bundle.dictionary(syncRoot); // Pronunciations of the grammar's words
+
+        // Verify all required files exist
+        if (!acousticModelDir.exists() || !acousticModelDir.isDirectory() || !new File(acousticModelDir, LocaleBundle.MODEL_DEFINITION_FILE).exists()) {
+            throw new IOException("Acoustic model '" + bundle.tag + "' dir or critical 'mdef' file missing/invalid at " + acousticModelDir.getAbsolutePath());
+        }
+        if (!dictionaryFile.exists()) {
+            throw new IOException("Dictionary file missing: " + dictionaryFile.getAbsolutePath());
+        }
+
+        // Configure PocketSphinx with our model files
+        SpeechRecognizerSetup setup = SpeechRecognizerSetup.defaultSetup()
+                .setAcousticModel(acousticModelDir)
+                .setDictionary(dictionaryFile)
+                .setKeywordThreshold(WAKE_KEYWORD_THRESHOLD)
+                .setString("-cmn", "live") // Running CMN, carried across utterances
+                .setInteger("-vad_postspeech", Endpointer.VAD_POSTSPEECH_FRAMES) // Short VAD tail; Endpointer adds the rest
+                .setBoolean("-allphone_ci", true); // Phone loop over CI phones only: the fallback must be cheap
+
+        // Start CMN from the mean learned on this route instead of the generic default
+        String cmnInit = AcousticStateStore.getInstance(context).cmnInit(bundle.tag);
+        if (cmnInit != null) {
+            setup.setString("-cmninit", cmnInit);
+        }
+
+        // Validated speaker/environment transform; narrower (cheaper) beams only if it fits well
+        SpeakerAdaptation adaptation = SpeakerAdaptation.getInstance(context);
+        File transform = adaptation.transformFor(bundle.tag);
+        if (transform != null) {
+            setup.setString("-mllr", transform.getAbsolutePath());
+            boolean narrowBeams = adaptation.allowsNarrowBeams(bundle.tag);
+            if (narrowBeams) {
+                setup.setFloat("-beam", ADAPTED_BEAM)
+                        .setFloat("-pbeam", ADAPTED_BEAM)
+                        .setFloat("-wbeam", ADAPTED_WORD_BEAM);
+            }
+            VLog.i(TAG, "Applying MLLR transform {} ({} beams).", transform.getAbsolutePath(), narrowBeams ? "narrowed" : "default");
+        }
+
+        SpeechRecognizer built = setup.getRecognizer();
+
+        if (built == null) {
+            throw new RuntimeException("SpeechRecognizerSetup.getRecognizer() returned null. Setup failed.");
+        }
+
+        // Keep each utterance's audio so its cepstral mean can be learned
+        built.getDecoder().setRawdataSize(UTTERANCE_RAWDATA_SAMPLES);
+
+        // Load our command grammar (no file: it is not copied out of the APK)
+        setCommandGrammar(context, built.getDecoder(), bundle, grammar);
+        VLog.i(TAG, "Grammar search '{}' added for bundle '{}'.", GRAMMAR_SEARCH_NAME, bundle.tag);
+
+        // Unconstrained phone loop (no phonetic LM) for the fallback matcher
+        try {
+            built.getDecoder().setAllphoneFile(PHONE_SEARCH_NAME, null);
+        } catch (RuntimeException e) {
+            VLog.w(TAG, "Phone-loop search unavailable for bundle '{}'; phonetic fallback disabled.", bundle.tag, e);
+        }
+
+        // Wake phrase for the low-power background mode (only if the bundle can spell it)
+        if (supportsWakePhrase(built)) {
+            built.addKeyphraseSearch(WAKE_SEARCH_NAME, WAKE_PHRASE);
+        } else {
+            VLog.w(TAG, "Bundle '{}' has no pronunciation for '{}'; wake-phrase mode unavailable.", bundle.tag, WAKE_PHRASE);
+        }
+        return built;
+    }
+
+    /**
+     * (RE)LOAD THE GRAMMAR SEARCH WITH THE CURRENT USAGE WEIGHTS
+     *
+     * The recognizer must be idle. Cheap enough (a small grammar read in
+     * place from the APK) to run between utterances.
+     */
+    static void loadGrammar(Context context, SpeechRecognizer recognizer, LocaleBundle bundle) throws IOException {
+        String grammar = new LocaleAssets(context).readGrammar(bundle);
+        Decoder decoder = recognizer.getDecoder();
+        setCommandGrammar(context, decoder, bundle, grammar);
+        decoder.setSearch(GRAMMAR_SEARCH_NAME); // The replaced search may have been the active one
+    }
+
+    /**
+     * GRAMMAR SEARCH WITH USAGE WEIGHTS, or the shipped grammar if the weighted one is rejected
+     */
+    private static void setCommandGrammar(Context context, Decoder decoder, LocaleBundle bundle, String shipped) {
+        String weighted = GrammarPriors.getInstance(context).weightedGrammar(bundle.tag, shipped);
+        if (!weighted.equals(shipped)) {
+            try {
+                decoder.setJsgfString(GRAMMAR_SEARCH_NAME, weighted);
+                return;
+            } catch (RuntimeException e) {
+                VLog.w(TAG, "Weighted grammar rejected for '{}' ({}); loading it unweighted.", bundle.tag, e.getMessage());
+            }
+        }
+        decoder.setJsgfString(GRAMMAR_SEARCH_NAME, shipped);
+    }
+
+    /**
+     * RELOAD THE GRAMMAR IF ENOUGH NEW COMMANDS WERE COUNTED
+     *
+     * Reads the APK and compiles the grammar: run it on the decoder worker,
+     * between utterances, and start listening once it has returned.
+     *
+     * @return true if the grammar was reloaded
+     */
+    static boolean reloadGrammarIfDue(Context context, SpeechRecognizer recognizer, LocaleBundle bundle) {
+        GrammarPriors priors = GrammarPriors.getInstance(context);
+        if (!priors.isReweightDue(bundle.tag)) return false;
+        try {
+            loadGrammar(context, recognizer, bundle);
+            return true;
+        } catch (Exception e) {
+            // Keep decoding with the previous weights; retried after the next batch of commands
+            VLog.w(TAG, "Reweighted grammar not loaded for '{}'.", bundle.tag, e);
+            priors.postponeReweight(bundle.tag);
+            return false;
+        }
+    }
+
+    /**
+     * PHONE-LOOP DECODE OF A FINISHED UTTERANCE (background thread)
+     *
+     * Runs the audio through the phone search with the decoder directly and
+     * switches back to the grammar search afterwards. The recognizer must be
+     * idle (between onResult() and the next startListening()).
+     *
+     * @return the phone string ("SIL T EY K ..."), empty if nothing was decoded
+     */
+    static String decodePhones(SpeechRecognizer recognizer, short[] audio) {
+        Decoder decoder = recognizer.getDecoder();
+        try {
+            decoder.setSearch(PHONE_SEARCH_NAME);
+            decoder.startUtt();
+            decoder.processRaw(audio, audio.length, false, true); // Whole utterance at once
+            decoder.endUtt();
+            Hypothesis phones = decoder.hyp();
+            return phones != null ? phones.getHypstr() : "";
+        } finally {
+            decoder.setSearch(GRAMMAR_SEARCH_NAME);
+        }
+    }
+
+    // ==================== UTTERANCE AUDIO ====================
+
+    /**
+     * AUDIO OF THE FINISHED UTTERANCE (decoder worker; null if unavailable)
+     *
+     * The decoder is idle between stop() and the next startListening(), so
+     * its raw audio buffer is stable here. The buffer holds the whole
+     * listening session; see trimToSpeech() for what is kept. The activity
+     * and the service both learn through here, so the acoustic state of a
+     * locale / route sees the same kind of audio from either.
+     *
+     * @param speechOffsetMs first speech relative to the start of listening (0 = keep everything)
+     */
+    static short[] readUtteranceAudio(SpeechRecognizer recognizer, long speechOffsetMs) {
+        short[] audio;
+        try {
+            audio = recognizer.getDecoder().getRawdata(); // JNI copies the whole buffer
+        } catch (Exception e) {
+            VLog.w(TAG, "Could not read utterance audio: {}", e.getMessage());
+            return null;
+        }
+        return trimToSpeech(audio, speechOffsetMs);
+    }
+
+    /**
+     * Drop the silence before the first speech, keeping UTTERANCE_LEAD_MS for the noise floor
+     */
+    static short[] trimToSpeech(short[] audio, long speechOffsetMs) {
+        int start = (int) Math.max(0, (speechOffsetMs - UTTERANCE_LEAD_MS) * SAMPLES_PER_MS);
+        if (audio == null || start == 0 || start >= audio.length) return audio;
+        return Arrays.copyOfRange(audio, start, audio.length);
+    }
+
+    /**
+     * Offset of the first speech in a listening session (0 if either time is unknown)
+     */
+    static long speechOffsetMs(long listeningStartedAtMs, long speechStartedAtMs) {
+        return speechStartedAtMs > 0 && listeningStartedAtMs > 0 ? speechStartedAtMs - listeningStartedAtMs : 0;
+    }
+
+    /**
+     * Whether the recognizer's dictionary covers every word of the wake phrase
+     */
+    static boolean supportsWakePhrase(SpeechRecognizer recognizer) {
+        for (String word : WAKE_PHRASE.split(" ")) {
+            if (recognizer.getDecoder().lookupWord(word) == null) return false;
+        }
+        return true;
+    }
+}
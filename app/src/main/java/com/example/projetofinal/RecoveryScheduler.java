@@ -0,0 +1,257 @@
+package com.example.projetofinal;
+
+// JAVA STANDARD IMPORTS
+import java.util.ArrayDeque; // Sliding window of failure timestamps
+import java.util.EnumMap; // Per-class / per-strategy bookkeeping
+import java.util.Random; // Backoff jitter
+
+/**
+ * RECOVERY SCHEDULER - Decides how and when to recover from recognizer failures
+ *
+ * Replaces the old "exponential backoff, give up after 3 attempts" logic:
+ * - The STRATEGY depends on what failed (a Sphinx timeout only needs a soft
+ *   restart; repeated decoder errors need a full engine rebuild).
+ * - The DELAY uses decorrelated jitter so retries don't fall into lockstep
+ *   with whatever is failing (e.g. another app holding the microphone).
+ * - A sliding-window HEALTH BUDGET slows recovery down when failures pile up
+ *   but never gives up for good; once the bad minute has passed, recovery
+ *   goes back to normal speed on its own.
+ * - A failure EPISODE only ends once listening has proven itself: a real
+ *   result (onRecognized) or STABLE_LISTENING_MS of listening without a
+ *   new failure. A restart that fails again stays in the same episode, so
+ *   consecutive failures escalate and the backoff keeps growing.
+ * - Every recovery is timed (first failure -> start of the listening
+ *   session that held) and the running statistics are logged as metrics.
+ *
+ * Not thread-safe: only used from the main thread.
+ */
+final class RecoveryScheduler {
+
+    private static final String TAG = "Recovery_SLATE";
+
+    /**
+     * What went wrong
+     */
+    enum FailureClass {
+        TIMEOUT, // Sphinx onTimeout: nothing heard
+        DECODER_ERROR, // onError / startListening failure inside the engine
+        WATCHDOG_STALL, // End of speech but no result within the watchdog window
+        AUDIO_DEVICE_BUSY, // Microphone could not be opened (held by another app)
+        INIT_FAILURE // Building the recognizer failed
+    }
+
+    /**
+     * How to recover
+     */
+    enum Strategy {
+        SOFT_RESTART, // stop + startListening on the same search
+        SEARCH_RESET, // cancel, reload the grammar search, then listen
+        FULL_REBUILD // discard the recognizer and build a new one off-thread
+    }
+
+    /**
+     * The decision for one failure
+     */
+    static final class Plan {
+        final Strategy strategy;
+        final long delayMs;
+        final boolean degraded; // True when the health budget is exhausted
+
+        Plan(Strategy strategy, long delayMs, boolean degraded) {
+            this.strategy = strategy;
+            this.delayMs = delayMs;
+            this.degraded = degraded;
+        }
+    }
+
+    // ==================== BACKOFF SETTINGS ====================
+
+    // Base (first retry) delay per failure class
+    private static final long TIMEOUT_BASE_DELAY_MS = 50;
+    private static final long DECODER_BASE_DELAY_MS = 250;
+    private static final long STALL_BASE_DELAY_MS = 100;
+    private static final long AUDIO_BUSY_BASE_DELAY_MS = 1000;
+    private static final long INIT_BASE_DELAY_MS = 1000;
+
+    // Upper bound for any jittered delay while healthy
+    private static final long MAX_BACKOFF_DELAY_MS = 8000;
+
+    // Consecutive failures of one class before escalating to a stronger strategy
+    private static final int ESCALATE_TO_REBUILD_AFTER = 2;
+
+    // Listening this long without a failure counts as recovered
+    static final long STABLE_LISTENING_MS = 10_000;
+
+    // ==================== HEALTH BUDGET SETTINGS ====================
+
+    // Failures allowed inside the sliding window before recovery slows down
+    private static final int HEALTH_BUDGET_FAILURES = 6;
+    private static final long HEALTH_WINDOW_MS = 60_000;
+
+    // Retry interval while the budget is exhausted (instead of giving up)
+    private static final long DEGRADED_RETRY_DELAY_MS = 15_000;
+
+    private final Random random;
+    private final ArrayDeque<Long> recentFailuresMs = new ArrayDeque<>();
+    private final EnumMap<FailureClass, Integer> consecutiveFailures = new EnumMap<>(FailureClass.class);
+    private final EnumMap<FailureClass, Long> lastDelayMs = new EnumMap<>(FailureClass.class);
+    private final EnumMap<Strategy, Integer> strategyUses = new EnumMap<>(Strategy.class);
+
+    // ==================== RECOVERY METRICS ====================
+    private long episodeStartMs = -1; // First failure of the current episode (-1 = healthy)
+    private long listeningSinceMs = -1; // Start of the current listening session (-1 = not listening)
+    private Strategy episodeLastStrategy = null;
+    private int recoveries = 0;
+    private long totalRecoveryMs = 0;
+    private long maxRecoveryMs = 0;
+    private long lastRecoveryMs = 0;
+
+    RecoveryScheduler() {
+        this(new Random());
+    }
+
+    // Tests pass a fixed Random to make the jitter predictable
+    RecoveryScheduler(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * A FAILURE HAPPENED - returns what to do and when
+     */
+    Plan onFailure(FailureClass failure, long nowMs) {
+        // The listening session before this failure may have been long enough to count
+        if (listeningSinceMs >= 0 && nowMs - listeningSinceMs >= STABLE_LISTENING_MS) {
+            closeEpisode();
+        }
+        listeningSinceMs = -1;
+
+        if (episodeStartMs < 0) {
+            episodeStartMs = nowMs;
+        }
+
+        // Slide the window and record this failure
+        while (!recentFailuresMs.isEmpty() && nowMs - recentFailuresMs.peekFirst() > HEALTH_WINDOW_MS) {
+            recentFailuresMs.pollFirst();
+        }
+        recentFailuresMs.addLast(nowMs);
+
+        Integer previous = consecutiveFailures.get(failure);
+        int consecutive = previous == null ? 1 : previous + 1;
+        consecutiveFailures.put(failure, consecutive);
+
+        Strategy strategy = chooseStrategy(failure, consecutive);
+        boolean degraded = recentFailuresMs.size() > HEALTH_BUDGET_FAILURES;
+        long delay = degraded ? DEGRADED_RETRY_DELAY_MS : jitteredDelay(failure);
+
+        if (degraded) {
+            // Many failures in a short time: a rebuild is the only thing likely to help
+            strategy = failure == FailureClass.AUDIO_DEVICE_BUSY ? Strategy.SOFT_RESTART : Strategy.FULL_REBUILD;
+        }
+
+        Integer uses = strategyUses.get(strategy);
+        strategyUses.put(strategy, uses == null ? 1 : uses + 1);
+        episodeLastStrategy = strategy;
+
+        final int inWindow = recentFailuresMs.size();
+        final Strategy chosen = strategy;
+        VLog.i(TAG, () -> "Failure " + failure + " (#" + consecutive + " consecutive, " + inWindow +
+                " in window) -> " + chosen + " in " + delay + "ms" + (degraded ? " [DEGRADED]" : ""));
+        return new Plan(strategy, delay, degraded);
+    }
+
+    /**
+     * LISTENING AGAIN - starts the session that may end the episode
+     *
+     * Does not end the episode by itself: a restart that fails right away
+     * must still count towards escalation.
+     */
+    void onListening(long nowMs) {
+        listeningSinceMs = nowMs;
+    }
+
+    /**
+     * THE DECODER PRODUCED A RESULT - the current episode, if any, is over
+     */
+    void onRecognized(long nowMs) {
+        if (listeningSinceMs < 0) listeningSinceMs = nowMs;
+        closeEpisode();
+    }
+
+    private void closeEpisode() {
+        if (episodeStartMs < 0) return;
+
+        long recoveryMs = Math.max(0, listeningSinceMs - episodeStartMs);
+        recoveries++;
+        totalRecoveryMs += recoveryMs;
+        maxRecoveryMs = Math.max(maxRecoveryMs, recoveryMs);
+        lastRecoveryMs = recoveryMs;
+        VLog.i(TAG, "Recovered via {} in {}ms.", episodeLastStrategy, recoveryMs);
+        VLog.d(TAG, this::describeMetrics); // Dropped with all debug logging in release
+
+        episodeStartMs = -1;
+        episodeLastStrategy = null;
+        consecutiveFailures.clear();
+        lastDelayMs.clear();
+    }
+
+    /**
+     * RECOVERY METRICS SUMMARY (for logs / diagnostics)
+     */
+    String describeMetrics() {
+        long average = recoveries == 0 ? 0 : totalRecoveryMs / recoveries;
+        return "recoveries=" + recoveries + " last=" + lastRecoveryMs + "ms avg=" + average +
+                "ms max=" + maxRecoveryMs + "ms strategies=" + strategyUses;
+    }
+
+    boolean isRecovering() {
+        return episodeStartMs >= 0;
+    }
+
+    int recoveries() {
+        return recoveries;
+    }
+
+    private Strategy chooseStrategy(FailureClass failure, int consecutive) {
+        switch (failure) {
+            case TIMEOUT:
+                return Strategy.SOFT_RESTART;
+            case AUDIO_DEVICE_BUSY:
+                // Rebuilding won't free a microphone someone else holds
+                return Strategy.SOFT_RESTART;
+            case WATCHDOG_STALL:
+            case DECODER_ERROR:
+                return consecutive >= ESCALATE_TO_REBUILD_AFTER ? Strategy.FULL_REBUILD : Strategy.SEARCH_RESET;
+            case INIT_FAILURE:
+            default:
+                return Strategy.FULL_REBUILD;
+        }
+    }
+
+    /**
+     * DECORRELATED JITTER: delay = random(base, previous * 3), capped
+     */
+    private long jitteredDelay(FailureClass failure) {
+        long base = baseDelayMs(failure);
+        Long previous = lastDelayMs.get(failure);
+        long upper = Math.min(MAX_BACKOFF_DELAY_MS, previous == null ? base * 2 : previous * 3);
+        long delay = upper <= base ? base : base + (long) (random.nextDouble() * (upper - base));
+        lastDelayMs.put(failure, delay);
+        return delay;
+    }
+
+    private static long baseDelayMs(FailureClass failure) {
+        switch (failure) {
+            case TIMEOUT:
+                return TIMEOUT_BASE_DELAY_MS;
+            case WATCHDOG_STALL:
+                return STALL_BASE_DELAY_MS;
+            case AUDIO_DEVICE_BUSY:
+                return AUDIO_BUSY_BASE_DELAY_MS;
+            case INIT_FAILURE:
+                return INIT_BASE_DELAY_MS;
+            case DECODER_ERROR:
+            default:
+                return DECODER_BASE_DELAY_MS;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.content.Context; // For app storage / preferences
+import android.content.SharedPreferences; // Profile + pending counts
+import android.os.Build; // For API level checks
+
+// ANDROIDX (SUPPORT LIBRARY) IMPORTS
+import androidx.work.Constraints; // Idle + charging
+import androidx.work.Data; // Worker input
+import androidx.work.ExistingWorkPolicy; // One pending job per profile/locale
+import androidx.work.OneTimeWorkRequest; // The estimation job
+import androidx.work.WorkManager; // Job scheduling
+
+// JAVA STANDARD IMPORTS
+import java.io.BufferedInputStream; // Corpus reading
+import java.io.BufferedOutputStream; // Corpus writing
+import java.io.DataInputStream; // Corpus reading
+import java.io.DataOutputStream; // Corpus writing
+import java.io.File; // Corpus / transform locations
+import java.io.FileInputStream; // Corpus reading
+import java.io.FileOutputStream; // Corpus writing
+import java.io.IOException; // For file error handling
+import java.util.ArrayList; // Corpus lists
+import java.util.Arrays; // Sorting corpus files
+import java.util.List; // Corpus lists
+import java.util.concurrent.ExecutorService; // Serialized background writes
+import java.util.concurrent.Executors; // Serialized background writes
+
+/**
+ * SPEAKER ADAPTATION - Collects training utterances and manages MLLR transforms
+ *
+ * Pipeline:
+ * 1. collect(): an accepted, high-confidence command's audio is trimmed to
+ *    its speech region and stored with the CI phones of its transcription.
+ * 2. Every ESTIMATE_AFTER_NEW_UTTERANCES new utterances, an MllrWorker job
+ *    is queued that only runs while the device is idle and charging.
+ * 3. The job writes the transform only if it improves the fit on held-out
+ *    utterances and records that gain; transformFor() hands it to the next
+ *    decoder build (-mllr). A transform without a recorded gain (written
+ *    before validation existed) is ignored.
+ * 4. Narrower decoder beams are only allowed (allowsNarrowBeams) when the
+ *    recorded gain is well above the bar for writing the transform.
+ *
+ * Everything is stored per user profile and locale under
+ * files/adaptation/<profile>/<locale>/.
+ */
+final class SpeakerAdaptation {
+
+    private static final String TAG = "Adaptation_SLATE";
+
+    private static final String PREFS_NAME = "speaker_adaptation";
+    private static final String KEY_PROFILE = "profile";
+    private static final String KEY_PENDING_SUFFIX = ".pending";
+    private static final String KEY_GAIN_SUFFIX = ".gain";
+    static final String DEFAULT_PROFILE = "default";
+
+    private static final String ROOT_DIR = "adaptation";
+    private static final String CORPUS_DIR = "corpus";
+    private static final String TRANSFORM_FILE = "mllr_matrix";
+    private static final String UTTERANCE_EXTENSION = ".utt";
+
+    // ==================== COLLECTION SETTINGS ====================
+
+    // Oldest utterances are dropped beyond this (keeps the corpus current and small)
+    private static final int MAX_CORPUS_UTTERANCES = 80;
+
+    // New utterances needed before another estimation is queued
+    private static final int ESTIMATE_AFTER_NEW_UTTERANCES = 20;
+
+    // Silence kept around the speech region (frames of 10 ms)
+    private static final int SPEECH_PADDING_FRAMES = 25;
+
+    // Frames this far above the utterance's quietest frames count as speech
+    private static final double SPEECH_MARGIN_DB = 10;
+
+    // Held-out gain per frame above which the decoder may run narrower beams
+    private static final float NARROW_BEAMS_MIN_GAIN = (float) (5 * MllrEstimator.MIN_GAIN_PER_FRAME);
+
+    private static SpeakerAdaptation instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    /**
+     * Process-wide instance (activity and background service collect into one corpus)
+     */
+    static synchronized SpeakerAdaptation getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpeakerAdaptation(context);
+        }
+        return instance;
+    }
+
+    private SpeakerAdaptation(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * ACTIVE USER PROFILE
+     */
+    String profile() {
+        return prefs.getString(KEY_PROFILE, DEFAULT_PROFILE);
+    }
+
+    /**
+     * TRANSFORM FOR THE NEXT DECODER BUILD (null if none was validated yet)
+     */
+    File transformFor(String localeTag) {
+        String profile = profile();
+        File transform = transformFile(context, profile, localeTag);
+        return transform.isFile() && prefs.contains(gainKey(profile, localeTag)) ? transform : null;
+    }
+
+    /**
+     * The validated transform fits well enough to trade beam width for CPU
+     */
+    boolean allowsNarrowBeams(String localeTag) {
+        String profile = profile();
+        return prefs.getFloat(gainKey(profile, localeTag), 0f) >= NARROW_BEAMS_MIN_GAIN;
+    }
+
+    /**
+     * STORE ONE TRAINING UTTERANCE (returns immediately)
+     *
+     * @param modelDir synced acoustic model the job will align against
+     * @param phones   CI phones of the transcription, in order
+     */
+    void collect(String localeTag, File modelDir, short[] audio, String[] phones) {
+        if (audio == null || audio.length == 0 || phones.length == 0) return;
+        final String profile = profile();
+        worker.execute(() -> {
+            short[] speech = trimToSpeech(audio);
+            if (speech == null) {
+                VLog.d(TAG, "No speech region found; utterance not collected.");
+                return;
+            }
+
+            File corpus = corpusDir(context, profile, localeTag);
+            if (!corpus.isDirectory() && !corpus.mkdirs()) {
+                VLog.e(TAG, "Cannot create corpus dir {}", corpus.getAbsolutePath());
+                return;
+            }
+            File file = new File(corpus, System.currentTimeMillis() + UTTERANCE_EXTENSION);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeUTF(String.join(" ", phones));
+                out.writeInt(speech.length);
+                for (short sample : speech) {
+                    out.writeShort(sample);
+                }
+            } catch (IOException e) {
+                VLog.e(TAG, "Failed to store utterance: {}", e.getMessage(), e);
+                file.delete();
+                return;
+            }
+            pruneCorpus(corpus);
+
+            String pendingKey = profile + "|" + localeTag + KEY_PENDING_SUFFIX;
+            int pending = prefs.getInt(pendingKey, 0) + 1;
+            prefs.edit().putInt(pendingKey, pending).apply();
+            VLog.d(TAG, () -> "Collected utterance (" + speech.length + " samples, " + pending + " new) for " +
+                    profile + "/" + localeTag);
+
+            if (pending >= ESTIMATE_AFTER_NEW_UTTERANCES) {
+                scheduleEstimation(profile, localeTag, modelDir);
+            }
+        });
+    }
+
+    /**
+     * QUEUE THE ESTIMATION JOB (idle + charging only)
+     */
+    private void scheduleEstimation(String profile, String localeTag, File modelDir) {
+        Constraints.Builder constraints = new Constraints.Builder().setRequiresCharging(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+        Data input = new Data.Builder()
+                .putString(MllrWorker.KEY_PROFILE, profile)
+                .putString(MllrWorker.KEY_LOCALE, localeTag)
+                .putString(MllrWorker.KEY_MODEL_DIR, modelDir.getAbsolutePath())
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(MllrWorker.class)
+                .setConstraints(constraints.build())
+                .setInputData(input)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork("mllr_" + profile + "_" + localeTag, ExistingWorkPolicy.KEEP, request);
+        VLog.i(TAG, "MLLR estimation queued for {}/{} (waits for idle + charging).", profile, localeTag);
+    }
+
+    // ==================== STORAGE (shared with MllrWorker) ====================
+
+    static File transformFile(Context context, String profile, String localeTag) {
+        return new File(localeDir(context, profile, localeTag), TRANSFORM_FILE);
+    }
+
+    /**
+     * A transform was written: remember its held-out gain per frame
+     */
+    static void recordTransform(Context context, String profile, String localeTag, double gainPerFrame) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putFloat(gainKey(profile, localeTag), (float) gainPerFrame)
+                .apply();
+    }
+
+    static File corpusDir(Context context, String profile, String localeTag) {
+        return new File(localeDir(context, profile, localeTag), CORPUS_DIR);
+    }
+
+    /**
+     * The job consumed the pending utterances (whether or not a transform was written)
+     */
+    static void markEstimated(Context context, String profile, String localeTag) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putInt(profile + "|" + localeTag + KEY_PENDING_SUFFIX, 0)
+                .apply();
+    }
+
+    /**
+     * LOAD THE CORPUS (unreadable files are skipped and removed)
+     */
+    static List<MllrEstimator.Utterance> loadCorpus(File corpus) {
+        List<MllrEstimator.Utterance> utterances = new ArrayList<>();
+        File[] files = corpus.listFiles((dir, name) -> name.endsWith(UTTERANCE_EXTENSION));
+        if (files == null) return utterances;
+
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                String[] phones = in.readUTF().split(" ");
+                short[] audio = new short[in.readInt()];
+                for (int i = 0; i < audio.length; i++) {
+                    audio[i] = in.readShort();
+                }
+                utterances.add(new MllrEstimator.Utterance(audio, phones));
+            } catch (IOException e) {
+                VLog.w(TAG, "Dropping unreadable corpus file {}: {}", file.getName(), e.getMessage());
+                file.delete();
+            }
+        }
+        return utterances;
+    }
+
+    private static String gainKey(String profile, String localeTag) {
+        return profile + "|" + localeTag + KEY_GAIN_SUFFIX;
+    }
+
+    private static File localeDir(Context context, String profile, String localeTag) {
+        return new File(new File(new File(context.getFilesDir(), ROOT_DIR), profile), localeTag);
+    }
+
+    private static void pruneCorpus(File corpus) {
+        File[] files = corpus.listFiles((dir, name) -> name.endsWith(UTTERANCE_EXTENSION));
+        if (files == null || files.length <= MAX_CORPUS_UTTERANCES) return;
+        Arrays.sort(files); // Names are timestamps: oldest first
+        for (int i = 0; i < files.length - MAX_CORPUS_UTTERANCES; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * SPEECH REGION + PADDING (null if nothing stands out from the background)
+     */
+    private static short[] trimToSpeech(short[] audio) {
+        int frameLength = MfccFrontEnd.FRAME_SHIFT;
+        int frames = audio.length / frameLength;
+        if (frames == 0) return null;
+
+        double[] energyDb = new double[frames];
+        for (int f = 0; f < frames; f++) {
+            double sum = 0;
+            for (int i = f * frameLength; i < (f + 1) * frameLength; i++) {
+                sum += (double) audio[i] * audio[i];
+            }
+            energyDb[f] = 10 * Math.log10(sum / frameLength + 1);
+        }
+        double[] sorted = energyDb.clone();
+        Arrays.sort(sorted);
+        double threshold = sorted[frames / 10] + SPEECH_MARGIN_DB;
+
+        int first = -1;
+        int last = -1;
+        for (int f = 0; f < frames; f++) {
+            if (energyDb[f] >= threshold) {
+                if (first < 0) first = f;
+                last = f;
+            }
+        }
+        if (first < 0) return null;
+
+        int start = Math.max(0, first - SPEECH_PADDING_FRAMES) * frameLength;
+        int end = Math.min(frames, last + 1 + SPEECH_PADDING_FRAMES) * frameLength;
+        return Arrays.copyOfRange(audio, start, end);
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.os.SystemClock; // Record timestamps
+import android.util.Log; // Logcat output
+
+// JAVA STANDARD IMPORTS
+import java.io.File; // Dump target
+import java.io.FileOutputStream; // Dump target
+import java.io.IOException; // For file error handling
+import java.io.OutputStreamWriter; // Dump target
+import java.io.Writer; // Dump target
+import java.nio.charset.StandardCharsets; // Record encoding
+import java.util.Locale; // Dump formatting
+
+/**
+ * VLOG - Logging facade for the recognition paths
+ *
+ * android.util.Log takes a finished String, so every call pays for the
+ * concatenation even when logcat drops it. VLog instead:
+ * - Checks the level first and only then formats.
+ * - Takes parameterized messages ("{}" placeholders, fixed-arity overloads
+ *   so no varargs array is built) or a MessageSupplier for anything costly.
+ *   As in SLF4J, a Throwable after the last argument of w()/e() is logged
+ *   with its stack trace instead of being formatted.
+ * - Keeps the recent records in a fixed binary ring in memory, so the
+ *   history before a failure can be dumped on demand (dump()), even when
+ *   logcat has rolled over.
+ *
+ * Release builds log INFO and above only, and R8 removes the v()/d() calls
+ * and their arguments entirely (see proguard-rules.pro).
+ */
+final class VLog {
+
+    /**
+     * Builds a message only when the level is enabled
+     */
+    interface MessageSupplier {
+        String get();
+    }
+
+    // Lowest level that is formatted (release: INFO, debug: everything)
+    private static final int MIN_LEVEL = BuildConfig.DEBUG ? Log.VERBOSE : Log.INFO;
+
+    // ==================== RING SETTINGS ====================
+
+    // Ring capacity (a few hundred typical records)
+    private static final int RING_BYTES = 64 * 1024;
+
+    // Longer tags / messages are cut in the ring (logcat gets them whole)
+    private static final int MAX_TAG_BYTES = 64;
+    private static final int MAX_MESSAGE_BYTES = 1024;
+
+    // Record: int bodyLength | long elapsedMs | byte level | byte tagLength | tag | short messageLength | message
+    private static final int RECORD_HEADER_BYTES = 4;
+    private static final byte[] ring = new byte[RING_BYTES];
+    private static int head = 0; // Oldest record
+    private static int tail = 0; // Next write position
+    private static int used = 0;
+
+    private static final String LEVEL_LETTERS = "??VDIWEA";
+
+    private VLog() {
+    }
+
+    static boolean isLoggable(int level) {
+        return level >= MIN_LEVEL;
+    }
+
+    // ==================== VERBOSE ====================
+
+    static void v(String tag, String message) {
+        if (isLoggable(Log.VERBOSE)) write(Log.VERBOSE, tag, message, null);
+    }
+
+    static void v(String tag, String pattern, Object arg) {
+        if (isLoggable(Log.VERBOSE)) write(Log.VERBOSE, tag, format(pattern, arg, null, null, 1), null);
+    }
+
+    static void v(String tag, String pattern, Object arg1, Object arg2) {
+        if (isLoggable(Log.VERBOSE)) write(Log.VERBOSE, tag, format(pattern, arg1, arg2, null, 2), null);
+    }
+
+    static void v(String tag, MessageSupplier message) {
+        if (isLoggable(Log.VERBOSE)) write(Log.VERBOSE, tag, message.get(), null);
+    }
+
+    // ==================== DEBUG ====================
+
+    static void d(String tag, String message) {
+        if (isLoggable(Log.DEBUG)) write(Log.DEBUG, tag, message, null);
+    }
+
+    static void d(String tag, String pattern, Object arg) {
+        if (isLoggable(Log.DEBUG)) write(Log.DEBUG, tag, format(pattern, arg, null, null, 1), null);
+    }
+
+    static void d(String tag, String pattern, Object arg1, Object arg2) {
+        if (isLoggable(Log.DEBUG)) write(Log.DEBUG, tag, format(pattern, arg1, arg2, null, 2), null);
+    }
+
+    static void d(String tag, String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.DEBUG)) write(Log.DEBUG, tag, format(pattern, arg1, arg2, arg3, 3), null);
+    }
+
+    static void d(String tag, MessageSupplier message) {
+        if (isLoggable(Log.DEBUG)) write(Log.DEBUG, tag, message.get(), null);
+    }
+
+    // ==================== INFO ====================
+
+    static void i(String tag, String message) {
+        if (isLoggable(Log.INFO)) write(Log.INFO, tag, message, null);
+    }
+
+    static void i(String tag, String pattern, Object arg) {
+        if (isLoggable(Log.INFO)) write(Log.INFO, tag, format(pattern, arg, null, null, 1), null);
+    }
+
+    static void i(String tag, String pattern, Object arg1, Object arg2) {
+        if (isLoggable(Log.INFO)) write(Log.INFO, tag, format(pattern, arg1, arg2, null, 2), null);
+    }
+
+    static void i(String tag, String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.INFO)) write(Log.INFO, tag, format(pattern, arg1, arg2, arg3, 3), null);
+    }
+
+    static void i(String tag, MessageSupplier message) {
+        if (isLoggable(Log.INFO)) write(Log.INFO, tag, message.get(), null);
+    }
+
+    // ==================== WARN ====================
+
+    static void w(String tag, String message) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, message, null);
+    }
+
+    static void w(String tag, String message, Throwable error) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, message, error);
+    }
+
+    static void w(String tag, String pattern, Object arg) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, format(pattern, arg, null, null, 1), null);
+    }
+
+    static void w(String tag, String pattern, Object arg1, Object arg2) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, format(pattern, arg1, arg2, null, 2), null);
+    }
+
+    static void w(String tag, String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, format(pattern, arg1, arg2, arg3, 3), null);
+    }
+
+    static void w(String tag, String pattern, Object arg, Throwable error) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, format(pattern, arg, null, null, 1), error);
+    }
+
+    static void w(String tag, MessageSupplier message) {
+        if (isLoggable(Log.WARN)) write(Log.WARN, tag, message.get(), null);
+    }
+
+    // ==================== ERROR ====================
+
+    static void e(String tag, String message) {
+        write(Log.ERROR, tag, message, null);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        write(Log.ERROR, tag, message, error);
+    }
+
+    static void e(String tag, String pattern, Object arg) {
+        write(Log.ERROR, tag, format(pattern, arg, null, null, 1), null);
+    }
+
+    static void e(String tag, String pattern, Object arg1, Object arg2) {
+        write(Log.ERROR, tag, format(pattern, arg1, arg2, null, 2), null);
+    }
+
+    static void e(String tag, String pattern, Object arg, Throwable error) {
+        write(Log.ERROR, tag, format(pattern, arg, null, null, 1), error);
+    }
+
+    // ==================== OUTPUT ====================
+
+    private static void write(int level, String tag, String message, Throwable error) {
+        if (error != null) {
+            Log.println(level, tag, message + '\n' + Log.getStackTraceString(error));
+            record(level, tag, message + " [" + error + "]");
+        } else {
+            Log.println(level, tag, message);
+            record(level, tag, message);
+        }
+    }
+
+    /**
+     * Replaces the first argCount "{}" in pattern (extra placeholders stay as-is)
+     */
+    private static String format(String pattern, Object arg1, Object arg2, Object arg3, int argCount) {
+        StringBuilder out = new StringBuilder(pattern.length() + 32);
+        int from = 0;
+        for (int n = 0; n < argCount; n++) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0) break;
+            out.append(pattern, from, at).append(n == 0 ? arg1 : n == 1 ? arg2 : arg3);
+            from = at + 2;
+        }
+        return out.append(pattern, from, pattern.length()).toString();
+    }
+
+    // ==================== RING ====================
+
+    private static synchronized void record(int level, String tag, String message) {
+        byte[] tagBytes = truncate(tag.getBytes(StandardCharsets.UTF_8), MAX_TAG_BYTES);
+        byte[] messageBytes = truncate(message.getBytes(StandardCharsets.UTF_8), MAX_MESSAGE_BYTES);
+        int bodyLength = 8 + 1 + 1 + tagBytes.length + 2 + messageBytes.length;
+        int recordLength = RECORD_HEADER_BYTES + bodyLength;
+
+        // Drop the oldest records until the new one fits
+        while (used + recordLength > RING_BYTES) {
+            int oldLength = RECORD_HEADER_BYTES + (int) readNumber(head, 4);
+            head = (head + oldLength) % RING_BYTES;
+            used -= oldLength;
+        }
+
+        int position = tail;
+        position = writeNumber(position, bodyLength, 4);
+        position = writeNumber(position, SystemClock.elapsedRealtime(), 8);
+        position = writeNumber(position, level, 1);
+        position = writeNumber(position, tagBytes.length, 1);
+        position = writeBytes(position, tagBytes);
+        position = writeNumber(position, messageBytes.length, 2);
+        tail = writeBytes(position, messageBytes);
+        used += recordLength;
+    }
+
+    /**
+     * WRITE THE RING AS TEXT (oldest first); the ring itself is kept
+     *
+     * @return number of records written
+     */
+    static int dump(File file) throws IOException {
+        byte[] copy;
+        int start;
+        int length;
+        synchronized (VLog.class) {
+            copy = ring.clone();
+            start = head;
+            length = used;
+        }
+
+        int records = 0;
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            int position = start;
+            int end = start + length;
+            while (position < end) {
+                int bodyLength = (int) readNumber(copy, position, 4);
+                long elapsedMs = readNumber(copy, position + 4, 8);
+                int level = (int) readNumber(copy, position + 12, 1);
+                int tagLength = (int) readNumber(copy, position + 13, 1);
+                String tag = readString(copy, position + 14, tagLength);
+                int messageLength = (int) readNumber(copy, position + 14 + tagLength, 2);
+                String message = readString(copy, position + 16 + tagLength, messageLength);
+
+                out.write(String.format(Locale.US, "%d.%03d %c/%s: %s\n", elapsedMs / 1000, elapsedMs % 1000,
+                        LEVEL_LETTERS.charAt(Math.min(level, LEVEL_LETTERS.length() - 1)), tag, message));
+                position += RECORD_HEADER_BYTES + bodyLength;
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static byte[] truncate(byte[] bytes, int max) {
+        if (bytes.length <= max) return bytes;
+        byte[] cut = new byte[max];
+        System.arraycopy(bytes, 0, cut, 0, max);
+        return cut;
+    }
+
+    // Big-endian fixed-width integers and raw bytes, wrapping at the ring end
+
+    private static int writeNumber(int position, long value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            ring[position] = (byte) (value >>> (8 * i));
+            position = (position + 1) % RING_BYTES;
+        }
+        return position;
+    }
+
+    private static int writeBytes(int position, byte[] bytes) {
+        for (byte b : bytes) {
+            ring[position] = b;
+            position = (position + 1) % RING_BYTES;
+        }
+        return position;
+    }
+
+    private static long readNumber(int position, int width) {
+        return readNumber(ring, position, width);
+    }
+
+    private static long readNumber(byte[] source, int position, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | (source[(position + i) % RING_BYTES] & 0xff);
+        }
+        return value;
+    }
+
+    private static String readString(byte[] source, int position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = source[(position + i) % RING_BYTES];
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
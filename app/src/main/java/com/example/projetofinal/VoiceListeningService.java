@@ -0,0 +1,842 @@
+package com.example.projetofinal;
+
+// ANDROID CORE IMPORTS
+import android.app.Notification; // Foreground notification
+import android.app.NotificationChannel; // Notification channel (API 26+)
+import android.app.NotificationManager; // Notification channel (API 26+)
+import android.app.PendingIntent; // Notification actions
+import android.app.Service; // Base class
+import android.content.BroadcastReceiver; // Battery updates
+import android.content.Context; // For starting the service
+import android.content.Intent; // Start / stop commands
+import android.content.IntentFilter; // Battery updates
+import android.content.pm.ServiceInfo; // Foreground service type
+import android.os.BatteryManager; // Battery extras
+import android.os.Build; // For API level checks
+import android.os.Handler; // For scheduling code on main thread
+import android.os.IBinder; // Not bindable
+import android.os.Looper; // For main thread reference
+import android.os.Process; // CPU time accounting
+import android.os.SystemClock; // For timing
+import android.speech.tts.TextToSpeech; // Spoken feedback for commands run here
+import android.speech.tts.UtteranceProgressListener; // Listening resumes after feedback
+
+// ANDROIDX (SUPPORT LIBRARY) IMPORTS
+import androidx.core.app.NotificationCompat; // Notification builder
+import androidx.core.content.ContextCompat; // For starting foreground services
+
+// JAVA STANDARD IMPORTS
+import java.lang.ref.WeakReference; // Listener must not keep the activity alive
+import java.util.EnumMap; // Per-mode accounting
+import java.util.List; // Available bundles
+import java.util.Locale; // For language settings
+
+// POCKETSPHINX (SPEECH RECOGNITION) IMPORTS
+import edu.cmu.pocketsphinx.Hypothesis; // For speech recognition results
+import edu.cmu.pocketsphinx.RecognitionListener; // For speech events
+import edu.cmu.pocketsphinx.SpeechRecognizer; // Main recognition engine
+
+/**
+ * VOICE LISTENING SERVICE - Hands-free recognition with the screen off or another app in front
+ *
+ * A microphone foreground service that owns the recognizer while it runs
+ * (MainActivity detaches from it) and duty-cycles it:
+ * - CONTINUOUS: grammar search all the time
+ * - WINDOWED: grammar search for a few seconds, then a pause
+ * - WAKE_PHRASE: keyword search for "hey camera", then a short grammar window
+ * ListeningModePolicy picks the mode from battery level, charging state and
+ * recent activity; it is re-evaluated on battery changes, after commands and
+ * once a minute. Process CPU time is accounted per mode and logged as
+ * CPU ms per hour.
+ *
+ * Recognized commands go to the registered Listener (MainActivity) while it
+ * can run them. Otherwise commands that need no UI run here, and camera
+ * commands are handed to the activity through a high-priority notification
+ * (see requestActivity()).
+ *
+ * All callbacks run on the main thread.
+ */
+public class VoiceListeningService extends Service implements RecognitionListener {
+
+    private static final String TAG = "VoiceService_SLATE";
+
+    static final String ACTION_STOP = "com.example.projetofinal.action.STOP_LISTENING";
+    static final String EXTRA_LOCALE_TAG = "com.example.projetofinal.extra.LOCALE_TAG";
+    static final String EXTRA_VOICE_COMMAND = "com.example.projetofinal.extra.VOICE_COMMAND";
+
+    private static final String CHANNEL_ID = "voice_listening";
+    private static final int NOTIFICATION_ID = 1001;
+
+    // Camera commands heard in the background, waiting for a tap
+    private static final String COMMAND_CHANNEL_ID = "voice_commands";
+    private static final int COMMAND_NOTIFICATION_ID = 1002;
+    private static final long COMMAND_NOTIFICATION_TIMEOUT_MS = 60_000;
+
+    // Utterance id of the spoken feedback
+    private static final String FEEDBACK_UTTERANCE_ID = "service_feedback";
+
+    // ==================== DUTY CYCLE SETTINGS ====================
+
+    // WINDOWED: listen this long, then pause this long
+    private static final long LISTEN_WINDOW_MS = 5000;
+    private static final long PAUSE_WINDOW_MS = 5000;
+
+    // WAKE_PHRASE: grammar window opened by the wake phrase
+    private static final long WAKE_COMMAND_WINDOW_MS = 6000;
+
+    // How often the mode is re-evaluated (battery broadcasts also trigger it)
+    private static final long MODE_REEVALUATE_MS = 60_000;
+
+    // How often the per-mode CPU report is logged
+    private static final long CPU_REPORT_INTERVAL_MS = 15 * 60_000;
+
+    /**
+     * Receives recognized commands while the service runs
+     */
+    interface Listener {
+        /**
+         * Whether commands can be handed over now (in front, or queueing behind a running action)
+         */
+        boolean canRunCommands();
+
+        void onVoiceCommand(String command);
+
+        void onServiceStopped();
+    }
+
+    private static volatile boolean running = false;
+    private static WeakReference<Listener> listener = new WeakReference<>(null); // Main thread only
+
+    // ==================== SERVICE STATE ====================
+    private Handler handler;
+    private DecoderWorker decoderWorker; // Shared with the activity: all off-main decoder work
+    private int listenToken = 0; // Only the latest deferred listen() may run
+    private SpeechRecognizer recognizer;
+    private LocaleBundle bundle;
+    private boolean isWakePhraseAvailable = false;
+    private TextToSpeech tts; // Created on first use
+    private boolean isTtsReady = false;
+    private boolean isSpeaking = false; // Listening is held off until the feedback has been spoken
+    private String pendingSpeech; // Requested before the engine was ready
+    private final RecoveryScheduler recoveryScheduler = new RecoveryScheduler();
+
+    // ==================== DUTY CYCLE STATE ====================
+    private ListeningModePolicy.Mode mode = null;
+    private String currentSearch = null; // Search currently listening, null while paused
+    private long listenWindowEndMs = 0; // WINDOWED: when the open listen window closes, 0 if none
+    private boolean isInSpeech = false;
+    private String lastPartialHypothesis = null; // Latest grammar partial of the current utterance
+    private long endOfSpeechAtMs = 0; // Non-zero while an endpoint window is running
+    private long endpointWindowMs = 0;
+    private long listeningStartedAtMs = -1; // Start of the current listening session
+    private long speechStartedAtMs = -1; // First speech of the current session (-1 = none yet)
+    private int batteryPercent = 100;
+    private boolean isCharging = false;
+    private long lastActiveMs;
+
+    // ==================== CPU ACCOUNTING ====================
+    private final EnumMap<ListeningModePolicy.Mode, Long> cpuMsByMode = new EnumMap<>(ListeningModePolicy.Mode.class);
+    private final EnumMap<ListeningModePolicy.Mode, Long> wallMsByMode = new EnumMap<>(ListeningModePolicy.Mode.class);
+    private long modeStartCpuMs;
+    private long modeStartWallMs;
+
+    private final Runnable closeListenWindow = this::closeListenWindow;
+    private final Runnable closeCommandWindow = this::closeCommandWindow;
+    private final Runnable beginCycle = this::beginCycle;
+    private final Runnable resumeCycle = this::resumeCycle;
+    private final Runnable finalizeUtterance = this::finalizeUtterance;
+    private final Runnable periodicReevaluate = new Runnable() {
+        @Override
+        public void run() {
+            reevaluateMode("periodic");
+            handler.postDelayed(this, MODE_REEVALUATE_MS);
+        }
+    };
+    private final Runnable periodicCpuReport = new Runnable() {
+        @Override
+        public void run() {
+            accountCpu();
+            logCpuReport();
+            handler.postDelayed(this, CPU_REPORT_INTERVAL_MS);
+        }
+    };
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+            if (level >= 0 && scale > 0) {
+                batteryPercent = level * 100 / scale;
+            }
+            isCharging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            reevaluateMode("battery");
+        }
+    };
+
+    // ==================== CONTROL (called from MainActivity) ====================
+
+    static boolean isRunning() {
+        return running;
+    }
+
+    static void setListener(Listener newListener) {
+        listener = new WeakReference<>(newListener);
+    }
+
+    static void start(Context context, String localeTag) {
+        Intent intent = new Intent(context, VoiceListeningService.class).putExtra(EXTRA_LOCALE_TAG, localeTag);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    static void stop(Context context) {
+        context.stopService(new Intent(context, VoiceListeningService.class));
+    }
+
+    /**
+     * The activity took the command: drop the notification asking for it
+     */
+    static void clearCommandRequest(Context context) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.cancel(COMMAND_NOTIFICATION_ID);
+        }
+    }
+
+    // ==================== SERVICE LIFECYCLE ====================
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        handler = new Handler(Looper.getMainLooper());
+        decoderWorker = DecoderWorker.getInstance();
+        lastActiveMs = SystemClock.elapsedRealtime();
+        createNotificationChannel();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            VLog.i(TAG, "Stop requested from notification.");
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+
+        // Must be called promptly after startForegroundService()
+        startInForeground();
+        if (running) {
+            return START_NOT_STICKY;
+        }
+        running = true;
+
+        Intent battery = ContextCompat.registerReceiver(this, batteryReceiver,
+                new IntentFilter(Intent.ACTION_BATTERY_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+        if (battery != null) {
+            batteryReceiver.onReceive(this, battery); // Sticky: current state right away
+        }
+        handler.postDelayed(periodicReevaluate, MODE_REEVALUATE_MS);
+        handler.postDelayed(periodicCpuReport, CPU_REPORT_INTERVAL_MS);
+
+        acquireRecognizer(intent != null ? intent.getStringExtra(EXTRA_LOCALE_TAG) : null);
+        // Not sticky: a microphone service may not be restarted from the background
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        VLog.i(TAG, "Service stopping.");
+        handler.removeCallbacksAndMessages(null);
+        if (!running) return; // Stop action reached a service that never started listening
+        running = false;
+        unregisterReceiver(batteryReceiver);
+
+        accountCpu();
+        logCpuReport();
+        AcousticStateStore.getInstance(this).snapshot();
+        if (tts != null) {
+            tts.stop();
+            tts.shutdown();
+            tts = null;
+        }
+
+        if (recognizer != null) {
+            recognizer.removeListener(this);
+            try {
+                recognizer.cancel();
+            } catch (Exception e) {
+                VLog.w(TAG, "Exception cancelling recognizer: {}", e.getMessage());
+            }
+            recognizer = null;
+        }
+
+        Listener current = listener.get();
+        if (current != null) {
+            current.onServiceStopped();
+        }
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null; // Started service only
+    }
+
+    // ==================== RECOGNIZER ====================
+
+    /**
+     * Same cached recognizer the activity uses (built on the decoder worker on a miss)
+     *
+     * Queued behind any decoder work the activity left running (e.g. a
+     * phonetic re-decode), so the hand-over never shares a decoder.
+     */
+    private void acquireRecognizer(String localeTag) {
+        decoderWorker.run(() -> {
+            try {
+                LocaleAssets localeAssets = new LocaleAssets(this);
+                List<LocaleBundle> bundles = localeAssets.discoverBundles();
+                LocaleBundle chosen = null;
+                for (LocaleBundle candidate : bundles) {
+                    if (candidate.tag.equals(localeTag)) chosen = candidate;
+                }
+                if (chosen == null) {
+                    chosen = LocaleAssets.pick(bundles, Locale.getDefault());
+                }
+                if (chosen == null) {
+                    throw new IllegalStateException("No speech bundles found under assets/sync");
+                }
+                SpeechRecognizer acquired = RecognizerFactory.acquire(this, localeAssets, chosen);
+                final LocaleBundle acquiredBundle = chosen;
+                handler.post(() -> onRecognizerReady(acquired, acquiredBundle));
+            } catch (Exception e) {
+                VLog.e(TAG, "Recognizer setup failed: {}", e.getMessage(), e);
+                handler.post(() -> onFailure(RecoveryScheduler.FailureClass.INIT_FAILURE));
+            }
+        });
+    }
+
+    private void onRecognizerReady(SpeechRecognizer acquired, LocaleBundle acquiredBundle) {
+        if (!running) return;
+        recognizer = acquired;
+        bundle = acquiredBundle;
+        isWakePhraseAvailable = RecognizerFactory.supportsWakePhrase(acquired);
+        recognizer.addListener(this);
+        VLog.i(TAG, "Recognizer ready for '{}'.", bundle.tag);
+        mode = null; // Force the first mode to be applied
+        reevaluateMode("recognizer_ready");
+    }
+
+    // ==================== DUTY CYCLE ====================
+
+    private void reevaluateMode(String reason) {
+        if (recognizer == null) return;
+        ListeningModePolicy.Mode chosen = ListeningModePolicy.choose(batteryPercent, isCharging,
+                SystemClock.elapsedRealtime() - lastActiveMs, isWakePhraseAvailable);
+        if (chosen == mode) return;
+
+        final ListeningModePolicy.Mode previous = mode;
+        VLog.i(TAG, () -> "Mode " + previous + " -> " + chosen + " (" + reason + ", battery " + batteryPercent + "%" +
+                (isCharging ? ", charging" : "") + ").");
+        accountCpu();
+        mode = chosen;
+        updateNotification(null);
+        if (!isInSpeech) {
+            beginCycle();
+        }
+    }
+
+    /**
+     * START THE CURRENT MODE'S LISTENING PHASE
+     */
+    private void beginCycle() {
+        handler.removeCallbacks(closeListenWindow);
+        handler.removeCallbacks(closeCommandWindow);
+        handler.removeCallbacks(beginCycle);
+        handler.removeCallbacks(resumeCycle);
+        listenWindowEndMs = 0;
+        if (recognizer == null || mode == null) return;
+
+        switch (mode) {
+            case CONTINUOUS:
+                listen(RecognizerFactory.GRAMMAR_SEARCH_NAME);
+                break;
+            case WINDOWED:
+                listen(RecognizerFactory.GRAMMAR_SEARCH_NAME);
+                listenWindowEndMs = SystemClock.elapsedRealtime() + LISTEN_WINDOW_MS;
+                handler.postDelayed(closeListenWindow, LISTEN_WINDOW_MS);
+                break;
+            case WAKE_PHRASE:
+                listen(RecognizerFactory.WAKE_SEARCH_NAME);
+                break;
+        }
+    }
+
+    /**
+     * WINDOWED: end of a listen window (kept open while someone is speaking)
+     */
+    private void closeListenWindow() {
+        if (isInSpeech || endOfSpeechAtMs > 0) return; // onResult resumes the cycle
+        listenWindowEndMs = 0;
+        pauseListening();
+        handler.postDelayed(beginCycle, PAUSE_WINDOW_MS);
+    }
+
+    /**
+     * CONTINUE THE CYCLE AFTER A RESULT
+     *
+     * WINDOWED: an utterance doesn't earn a fresh window. Listening resumes
+     * for what is left of the open one, or the pause starts if it ran out
+     * while the utterance was being finished. Other modes start over.
+     */
+    private void resumeCycle() {
+        if (recognizer == null || mode == null) return;
+        if (mode != ListeningModePolicy.Mode.WINDOWED || listenWindowEndMs == 0) {
+            beginCycle();
+            return;
+        }
+        handler.removeCallbacks(closeListenWindow);
+        long remainingMs = listenWindowEndMs - SystemClock.elapsedRealtime();
+        if (remainingMs > 0) {
+            listen(RecognizerFactory.GRAMMAR_SEARCH_NAME);
+            handler.postDelayed(closeListenWindow, remainingMs);
+        } else {
+            closeListenWindow();
+        }
+    }
+
+    /**
+     * WAKE_PHRASE: command window ran out, back to spotting the wake phrase
+     */
+    private void closeCommandWindow() {
+        if (isInSpeech || endOfSpeechAtMs > 0) return;
+        beginCycle();
+    }
+
+    private void listen(String searchName) {
+        resetEndpoint();
+        if (isSpeaking) return; // onFeedbackDone() resumes the cycle
+        final int token = ++listenToken; // Deferred listens queued earlier are now stale
+        if (decoderWorker.isBusy()) {
+            decoderWorker.whenIdle(() -> {
+                if (token == listenToken && running && recognizer != null) listen(searchName);
+            });
+            return;
+        }
+        try {
+            recognizer.cancel(); // Unlike stop(), posts no result
+            if (RecognizerFactory.GRAMMAR_SEARCH_NAME.equals(searchName)
+                    && GrammarPriors.getInstance(this).isReweightDue(bundle.tag)) {
+                // Reload on the worker; listening again waits for it (as for the audio copy)
+                final SpeechRecognizer current = recognizer;
+                final LocaleBundle reloaded = bundle;
+                decoderWorker.run(() -> {
+                    if (RecognizerFactory.reloadGrammarIfDue(this, current, reloaded)) {
+                        VLog.i(TAG, "Grammar reloaded with updated usage weights.");
+                    }
+                });
+                listen(searchName);
+                return;
+            }
+            recognizer.startListening(searchName);
+            currentSearch = searchName;
+            listeningStartedAtMs = SystemClock.elapsedRealtime();
+            speechStartedAtMs = -1;
+            recoveryScheduler.onListening(SystemClock.elapsedRealtime());
+        } catch (Exception e) {
+            VLog.e(TAG, "startListening({}) failed: {}", searchName, e.getMessage());
+            onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR);
+        }
+    }
+
+    private void pauseListening() {
+        try {
+            recognizer.cancel();
+        } catch (Exception e) {
+            VLog.w(TAG, "Exception pausing recognizer: {}", e.getMessage());
+        }
+        currentSearch = null;
+        isInSpeech = false;
+        resetEndpoint();
+    }
+
+    // ==================== ENDPOINTING ====================
+
+    /**
+     * Same adaptive silence window as the activity (see Endpointer)
+     */
+    private void startEndpoint() {
+        float noiseFloorDb = bundle != null ? AcousticStateStore.getInstance(this).noiseFloorDb(bundle.tag) : Float.NaN;
+        Endpointer.HypothesisState state = Endpointer.classify(lastPartialHypothesis);
+        endpointWindowMs = Endpointer.windowMs(state, noiseFloorDb);
+        endOfSpeechAtMs = SystemClock.elapsedRealtime();
+        // INFO: release builds strip d(), and every chosen window must stay in the ring
+        VLog.i(TAG, "Endpoint window {}ms ({}, noise floor {}dB).", endpointWindowMs, state, noiseFloorDb);
+        VLog.d(TAG, "Endpoint partial: '{}'.", lastPartialHypothesis);
+        handler.removeCallbacks(finalizeUtterance);
+        handler.postDelayed(finalizeUtterance, endpointWindowMs);
+    }
+
+    private void finalizeUtterance() {
+        if (recognizer != null) {
+            recognizer.stop(); // Finalizes the utterance -> onResult
+        }
+    }
+
+    private void resetEndpoint() {
+        handler.removeCallbacks(finalizeUtterance);
+        lastPartialHypothesis = null;
+        endOfSpeechAtMs = 0;
+    }
+
+    // ==================== RECOGNITION CALLBACKS ====================
+
+    @Override
+    public void onBeginningOfSpeech() {
+        isInSpeech = true;
+        if (speechStartedAtMs < 0) speechStartedAtMs = SystemClock.elapsedRealtime();
+        handler.removeCallbacks(finalizeUtterance); // Speech resumed inside the silence window
+        endOfSpeechAtMs = 0;
+    }
+
+    @Override
+    public void onEndOfSpeech() {
+        isInSpeech = false;
+        if (RecognizerFactory.GRAMMAR_SEARCH_NAME.equals(currentSearch)) {
+            startEndpoint();
+        }
+    }
+
+    @Override
+    public void onPartialResult(Hypothesis hypothesis) {
+        if (hypothesis == null) return;
+        if (RecognizerFactory.GRAMMAR_SEARCH_NAME.equals(currentSearch)) {
+            lastPartialHypothesis = hypothesis.getHypstr().toLowerCase(Locale.US).trim();
+            return;
+        }
+        if (!RecognizerFactory.WAKE_SEARCH_NAME.equals(currentSearch)) return;
+
+        // Keyword search reports the wake phrase as a partial result
+        VLog.i(TAG, "Wake phrase detected; opening command window.");
+        lastActiveMs = SystemClock.elapsedRealtime();
+        listen(RecognizerFactory.GRAMMAR_SEARCH_NAME);
+        handler.removeCallbacks(closeCommandWindow);
+        handler.postDelayed(closeCommandWindow, WAKE_COMMAND_WINDOW_MS);
+    }
+
+    @Override
+    public void onResult(Hypothesis hypothesis) {
+        currentSearch = null;
+        if (endOfSpeechAtMs > 0) {
+            VLog.d(TAG, "Endpoint: window {}ms, result {}ms after end of speech.", endpointWindowMs,
+                    SystemClock.elapsedRealtime() - endOfSpeechAtMs);
+        }
+        resetEndpoint();
+        if (hypothesis != null) {
+            recoveryScheduler.onRecognized(SystemClock.elapsedRealtime());
+            String command = hypothesis.getHypstr().toLowerCase(Locale.US).trim();
+            int score = hypothesis.getBestScore();
+            List<CommandIntent> batch = command.isEmpty() ? null : CommandIntent.parseChain(command);
+            if (batch != null && score > RecognizerFactory.minAcceptedScore(batch.size())) {
+                VLog.d(TAG, "Command '{}' (Confidence: {}) in mode {}.", command, score, mode);
+                lastActiveMs = SystemClock.elapsedRealtime();
+                learnAcousticState();
+                GrammarPriors.getInstance(this).recordAccepted(bundle.tag, command);
+                deliver(command, batch);
+                reevaluateMode("command");
+            } else {
+                VLog.d(TAG, "Ignoring result '{}' (Confidence: {}).", command, score);
+            }
+        }
+        // Speech was heard: continue the current mode's listening phase
+        handler.post(resumeCycle);
+    }
+
+    @Override
+    public void onError(Exception e) {
+        VLog.e(TAG, "Recognition error: {}", e.getMessage(), e);
+        onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR);
+    }
+
+    @Override
+    public void onTimeout() {
+        onFailure(RecoveryScheduler.FailureClass.TIMEOUT);
+    }
+
+    private void onFailure(RecoveryScheduler.FailureClass failure) {
+        if (!running) return;
+        currentSearch = null;
+        isInSpeech = false;
+        RecoveryScheduler.Plan plan = recoveryScheduler.onFailure(failure, SystemClock.elapsedRealtime());
+        if (plan.strategy == RecoveryScheduler.Strategy.FULL_REBUILD || recognizer == null) {
+            handler.postDelayed(this::rebuildRecognizer, plan.delayMs);
+        } else {
+            handler.postDelayed(beginCycle, plan.delayMs);
+        }
+    }
+
+    private void rebuildRecognizer() {
+        if (!running) return;
+        String localeTag = bundle != null ? bundle.tag : null;
+        if (recognizer != null) {
+            recognizer.removeListener(this);
+            pauseListening();
+            recognizer = null;
+        }
+        if (localeTag != null) {
+            // After any queued work on the old decoder (e.g. learnAcousticState's copy)
+            final DecoderCache cache = DecoderCache.getInstance(this);
+            decoderWorker.run(() -> cache.invalidate(localeTag));
+        }
+        acquireRecognizer(localeTag); // Also on the worker, so it runs after the invalidation
+    }
+
+    /**
+     * Same CMN / noise learning as the activity, accepted commands only
+     *
+     * The audio is copied out (and trimmed to the speech, as in the
+     * activity) on the decoder worker; listen() waits for it.
+     */
+    private void learnAcousticState() {
+        final SpeechRecognizer current = recognizer;
+        final LocaleBundle learnedBundle = bundle;
+        if (current == null || learnedBundle == null) return;
+        final long speechOffsetMs = RecognizerFactory.speechOffsetMs(listeningStartedAtMs, speechStartedAtMs);
+        decoderWorker.run(() -> {
+            short[] audio = RecognizerFactory.readUtteranceAudio(current, speechOffsetMs);
+            if (audio != null) AcousticStateStore.getInstance(this).update(learnedBundle.tag, audio);
+        });
+    }
+
+    // ==================== COMMAND DELIVERY ====================
+
+    private void deliver(String command, List<CommandIntent> batch) {
+        updateNotification(getString(R.string.notification_heard_command, command));
+        Listener current = listener.get();
+        if (current != null && current.canRunCommands()) {
+            current.onVoiceCommand(command);
+            return;
+        }
+        for (CommandIntent intent : batch) {
+            if (intent.startsCapture()) {
+                requestActivity(command); // The whole chain, so the activity keeps its order
+                return;
+            }
+        }
+        for (CommandIntent intent : CommandIntent.executionOrder(batch)) {
+            runWithoutActivity(intent);
+        }
+    }
+
+    /**
+     * A COMMAND THAT NEEDS NO UI, run here
+     */
+    private void runWithoutActivity(CommandIntent intent) {
+        switch (intent) {
+            case MESSAGE:
+                speak(getString(R.string.tts_message_placeholder));
+                break;
+            case STOP_RECORDING:
+                // In-app recordings end with the activity, so there is nothing to stop
+                updateNotification(getString(R.string.status_not_recording));
+                break;
+            default:
+                VLog.w(TAG, "{} needs the activity; not run from the service.", intent);
+                break;
+        }
+    }
+
+    /**
+     * HAND A CAMERA COMMAND TO THE ACTIVITY
+     *
+     * Android 10+ drops activity starts from a background service without
+     * any error, so startActivity() is only used below that. From 10 on the
+     * command goes out as a high-priority notification: its full-screen
+     * intent starts the activity when the system allows it (e.g. screen
+     * off), otherwise it shows heads-up and runs the command when tapped.
+     */
+    private void requestActivity(String command) {
+        Intent intent = new Intent(this, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP)
+                .putExtra(EXTRA_VOICE_COMMAND, command);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            startActivity(intent);
+            return;
+        }
+
+        PendingIntent run = PendingIntent.getActivity(this, 2, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        Notification notification = new NotificationCompat.Builder(this, COMMAND_CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(getString(R.string.notification_command_title, command))
+                .setContentText(getString(R.string.notification_command_text))
+                .setContentIntent(run)
+                .setFullScreenIntent(run, true)
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true)
+                .setTimeoutAfter(COMMAND_NOTIFICATION_TIMEOUT_MS)
+                .build();
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.notify(COMMAND_NOTIFICATION_ID, notification);
+        }
+        VLog.i(TAG, "Camera command '{}' handed to the activity by notification.", command);
+    }
+
+    // ==================== SPOKEN FEEDBACK ====================
+
+    /**
+     * SPEAK WITHOUT HEARING OURSELVES
+     *
+     * Listening is held off from the request until the engine is done (or
+     * failed), so the feedback never reaches the grammar search.
+     */
+    private void speak(String text) {
+        isSpeaking = true;
+        if (isTtsReady) {
+            startSpeaking(text);
+            return;
+        }
+        pendingSpeech = text;
+        if (tts == null) {
+            tts = new TextToSpeech(this, this::onTtsInit);
+        }
+    }
+
+    private void onTtsInit(int status) {
+        if (tts == null) return; // Service already destroyed
+        isTtsReady = status == TextToSpeech.SUCCESS;
+        if (isTtsReady) {
+            tts.setLanguage(bundle != null ? bundle.toLocale() : Locale.US);
+            tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+                @Override
+                public void onStart(String utteranceId) {
+                }
+
+                @Override
+                public void onDone(String utteranceId) {
+                    handler.post(VoiceListeningService.this::onFeedbackDone);
+                }
+
+                @Override
+                public void onError(String utteranceId) {
+                    handler.post(VoiceListeningService.this::onFeedbackDone);
+                }
+            });
+        } else {
+            VLog.w(TAG, "TTS initialization failed with status {}.", status);
+            tts.shutdown();
+            tts = null; // Retried on the next request
+        }
+        String text = pendingSpeech;
+        pendingSpeech = null;
+        if (text != null) startSpeaking(text);
+    }
+
+    private void startSpeaking(String text) {
+        if (!isTtsReady || tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, FEEDBACK_UTTERANCE_ID) != TextToSpeech.SUCCESS) {
+            VLog.w(TAG, "Could not speak '{}'.", text);
+            onFeedbackDone();
+        }
+    }
+
+    private void onFeedbackDone() {
+        if (!isSpeaking) return;
+        isSpeaking = false;
+        if (running) resumeCycle();
+    }
+
+    // ==================== CPU ACCOUNTING ====================
+
+    /**
+     * Charges CPU and wall time since the last call to the current mode
+     */
+    private void accountCpu() {
+        long cpuNow = Process.getElapsedCpuTime();
+        long wallNow = SystemClock.elapsedRealtime();
+        if (mode != null && modeStartWallMs > 0) {
+            Long cpu = cpuMsByMode.get(mode);
+            Long wall = wallMsByMode.get(mode);
+            cpuMsByMode.put(mode, (cpu == null ? 0 : cpu) + cpuNow - modeStartCpuMs);
+            wallMsByMode.put(mode, (wall == null ? 0 : wall) + wallNow - modeStartWallMs);
+        }
+        modeStartCpuMs = cpuNow;
+        modeStartWallMs = wallNow;
+    }
+
+    private void logCpuReport() {
+        StringBuilder report = new StringBuilder("CPU per mode (process total):");
+        for (ListeningModePolicy.Mode m : ListeningModePolicy.Mode.values()) {
+            Long wall = wallMsByMode.get(m);
+            if (wall == null || wall == 0) continue;
+            long cpu = cpuMsByMode.get(m);
+            report.append(' ').append(m).append('=').append(cpu * 3_600_000L / wall).append("ms/h (")
+                    .append(cpu).append("ms over ").append(wall / 1000).append("s)");
+        }
+        VLog.i(TAG, report.toString());
+    }
+
+    // ==================== NOTIFICATION ====================
+
+    private void startInForeground() {
+        Notification notification = buildNotification(null);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+    }
+
+    private void updateNotification(String detail) {
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null && running) {
+            manager.notify(NOTIFICATION_ID, buildNotification(detail));
+        }
+    }
+
+    private Notification buildNotification(String detail) {
+        int immutable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0;
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class).addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP), immutable);
+        PendingIntent stop = PendingIntent.getService(this, 1,
+                new Intent(this, VoiceListeningService.class).setAction(ACTION_STOP), immutable);
+
+        String text = detail != null ? detail : getString(modeDescription());
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(getString(R.string.notification_listening_title))
+                .setContentText(text)
+                .setContentIntent(open)
+                .addAction(0, getString(R.string.notification_action_stop), stop)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+    }
+
+    private int modeDescription() {
+        if (mode == null) return R.string.notification_mode_starting;
+        switch (mode) {
+            case CONTINUOUS:
+                return R.string.notification_mode_continuous;
+            case WINDOWED:
+                return R.string.notification_mode_windowed;
+            case WAKE_PHRASE:
+            default:
+                return R.string.notification_mode_wake_phrase;
+        }
+    }
+
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                getString(R.string.notification_channel_listening), NotificationManager.IMPORTANCE_LOW);
+        // Heads-up: a camera command heard in the background waits on it
+        NotificationChannel commands = new NotificationChannel(COMMAND_CHANNEL_ID,
+                getString(R.string.notification_channel_commands), NotificationManager.IMPORTANCE_HIGH);
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.createNotificationChannel(channel);
+            manager.createNotificationChannel(commands);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommandIntent: chain parsing, execution order and chain-prefix detection.
+ */
+public class CommandIntentTest {
+
+    @Test
+    public void singleCommand_parsesToOneIntent() {
+        assertEquals(Arrays.asList(CommandIntent.PHOTO), CommandIntent.parseChain("Take Photo"));
+    }
+
+    @Test
+    public void chain_parsesInSpokenOrder() {
+        assertEquals(Arrays.asList(CommandIntent.VIDEO, CommandIntent.MESSAGE, CommandIntent.STOP_RECORDING),
+                CommandIntent.parseChain("record video and send text and then stop recording"));
+    }
+
+    @Test
+    public void unknownPart_rejectsWholeChain() {
+        assertNull(CommandIntent.parseChain("take photo and dance"));
+        assertNull(CommandIntent.parseChain(""));
+        assertNull(CommandIntent.parseChain(null));
+    }
+
+    @Test
+    public void executionOrder_movesMessageAheadAndKeepsCameraOrder() {
+        List<CommandIntent> ordered = CommandIntent.executionOrder(
+                Arrays.asList(CommandIntent.VIDEO, CommandIntent.STOP_RECORDING, CommandIntent.MESSAGE));
+        assertEquals(Arrays.asList(CommandIntent.MESSAGE, CommandIntent.VIDEO, CommandIntent.STOP_RECORDING), ordered);
+    }
+
+    @Test
+    public void partialPhrase_isPrefix() {
+        assertTrue(CommandIntent.isChainPrefix("take"));
+        assertTrue(CommandIntent.isChainPrefix("photo and send"));
+    }
+
+    @Test
+    public void trailingChainWord_afterCompleteCommand_isPrefix() {
+        assertTrue(CommandIntent.isChainPrefix("photo and"));
+        assertTrue(CommandIntent.isChainPrefix("photo then"));
+        assertFalse(CommandIntent.isChainPrefix("dance and"));
+    }
+
+    @Test
+    public void completeOrOffGrammar_isNotPrefix() {
+        assertFalse(CommandIntent.isChainPrefix("take photo"));
+        assertFalse(CommandIntent.isChainPrefix("dance"));
+        assertFalse(CommandIntent.isChainPrefix("dance and take"));
+        assertFalse(CommandIntent.isChainPrefix(null));
+    }
+
+    @Test
+    public void chainPhrases_splitOnEveryChainWord() {
+        assertArrayEquals(new String[]{"photo", "send text", "video"},
+                CommandIntent.chainPhrases("Photo and send text then video"));
+    }
+
+    @Test
+    public void chainScoreBar_scalesWithCommandCount() {
+        assertEquals(2 * RecognizerFactory.minAcceptedScore(1), RecognizerFactory.minAcceptedScore(2));
+        assertEquals(RecognizerFactory.minAcceptedScore(1), RecognizerFactory.minAcceptedScore(0));
+    }
+
+    @Test
+    public void onlyPhotoAndVideo_needTheActivityInFront() {
+        assertTrue(CommandIntent.PHOTO.startsCapture());
+        assertTrue(CommandIntent.VIDEO.startsCapture());
+        assertFalse(CommandIntent.MESSAGE.startsCapture());
+        assertFalse(CommandIntent.STOP_RECORDING.startsCapture());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommandQueue: per-intent debounce and bounded FIFO holding.
+ */
+public class CommandQueueTest {
+
+    private static final long DEBOUNCE_MS = 800;
+
+    @Test
+    public void repeatOfSameIntentInsideWindow_isRejected() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, 1000));
+        assertFalse(queue.tryAccept(CommandIntent.PHOTO, 1000 + DEBOUNCE_MS - 1));
+    }
+
+    @Test
+    public void repeatAfterWindow_isAccepted() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, 1000));
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, 1000 + DEBOUNCE_MS));
+    }
+
+    @Test
+    public void rejectedRepeat_doesNotExtendWindow() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, 0));
+        assertFalse(queue.tryAccept(CommandIntent.PHOTO, 500));
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, DEBOUNCE_MS));
+    }
+
+    @Test
+    public void differentIntents_areDebouncedIndependently() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        assertTrue(queue.tryAccept(CommandIntent.PHOTO, 1000));
+        assertTrue(queue.tryAccept(CommandIntent.MESSAGE, 1001));
+    }
+
+    @Test
+    public void heldCommands_comeOutInOrder() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        assertTrue(queue.offer(CommandIntent.MESSAGE, "send text", 1));
+        assertTrue(queue.offer(CommandIntent.PHOTO, "photo", 2));
+
+        CommandQueue.PendingCommand first = queue.poll();
+        assertEquals(CommandIntent.MESSAGE, first.intent);
+        assertEquals("send text", first.phrase);
+        assertEquals(CommandIntent.PHOTO, queue.poll().intent);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fullQueue_keepsOldestAndRejectsNew() {
+        CommandQueue queue = new CommandQueue(2, DEBOUNCE_MS);
+        assertTrue(queue.offer(CommandIntent.PHOTO, "photo", 1));
+        assertTrue(queue.offer(CommandIntent.VIDEO, "video", 2));
+        assertFalse(queue.offer(CommandIntent.MESSAGE, "message", 3));
+
+        assertEquals(2, queue.size());
+        assertEquals(CommandIntent.PHOTO, queue.poll().intent);
+    }
+
+    @Test
+    public void clear_dropsHeldCommands() {
+        CommandQueue queue = new CommandQueue(4, DEBOUNCE_MS);
+        queue.offer(CommandIntent.PHOTO, "photo", 1);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+    }
+}
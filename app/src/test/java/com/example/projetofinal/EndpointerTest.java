@@ -0,0 +1,56 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Endpointer: hypothesis classification and the finalization window.
+ */
+public class EndpointerTest {
+
+    @Test
+    public void emptyOrOffGrammar_isNone() {
+        assertEquals(Endpointer.HypothesisState.NONE, Endpointer.classify(null));
+        assertEquals(Endpointer.HypothesisState.NONE, Endpointer.classify("  "));
+        assertEquals(Endpointer.HypothesisState.NONE, Endpointer.classify("dance"));
+    }
+
+    @Test
+    public void startOfCommandOrChain_isPrefix() {
+        assertEquals(Endpointer.HypothesisState.PREFIX, Endpointer.classify("take"));
+        assertEquals(Endpointer.HypothesisState.PREFIX, Endpointer.classify("photo and"));
+    }
+
+    @Test
+    public void singleCommand_canStillBeChained() {
+        assertEquals(Endpointer.HypothesisState.EXTENDABLE, Endpointer.classify("take photo"));
+        assertEquals(Endpointer.HypothesisState.EXTENDABLE, Endpointer.classify("photo and send text"));
+    }
+
+    @Test
+    public void longChain_isComplete() {
+        assertEquals(Endpointer.HypothesisState.COMPLETE, Endpointer.classify("photo and video then text"));
+    }
+
+    @Test
+    public void windows_growWithUncertainty() {
+        long complete = Endpointer.windowMs(Endpointer.HypothesisState.COMPLETE, Float.NaN);
+        long extendable = Endpointer.windowMs(Endpointer.HypothesisState.EXTENDABLE, Float.NaN);
+        long none = Endpointer.windowMs(Endpointer.HypothesisState.NONE, Float.NaN);
+        long prefix = Endpointer.windowMs(Endpointer.HypothesisState.PREFIX, Float.NaN);
+        assertTrue(complete < extendable);
+        assertTrue(extendable < none);
+        assertTrue(none < prefix);
+    }
+
+    @Test
+    public void noise_lengthensWindowWithinBounds() {
+        long quiet = Endpointer.windowMs(Endpointer.HypothesisState.EXTENDABLE, -70f);
+        long noisy = Endpointer.windowMs(Endpointer.HypothesisState.EXTENDABLE, -40f);
+        long noisier = Endpointer.windowMs(Endpointer.HypothesisState.PREFIX, 0f);
+        assertEquals(Endpointer.windowMs(Endpointer.HypothesisState.EXTENDABLE, Float.NaN), quiet);
+        assertTrue(noisy > quiet);
+        assertTrue(noisier <= 1200);
+    }
+}
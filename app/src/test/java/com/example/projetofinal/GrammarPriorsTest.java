@@ -0,0 +1,198 @@
+package com.example.projetofinal;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * GrammarPriors: grammar expansion, weighted rule rewriting and which
+ * preference keys each acceptance writes.
+ */
+public class GrammarPriorsTest {
+
+    private static final String GRAMMAR = "#JSGF V1.0;\ngrammar commands;\n"
+            + "public <command> = <single_command> (<chain_word> <single_command>)*;\n"
+            + "<single_command> = <photo> | <video>;\n"
+            + "<chain_word> = and | then;\n"
+            + "// Photo commands; \"take\" is optional in speech\n"
+            + "<photo> = (take | snap) photo | /* shortest */ photo;\n"
+            + "<video> = record video | video;\n";
+
+    // In-memory preferences shared by the process-wide GrammarPriors instance
+    private static final Map<String, Float> stored = new HashMap<>();
+    private static final List<String> written = new ArrayList<>();
+    private static GrammarPriors priors;
+
+    @Before
+    public void setUp() {
+        if (priors == null) {
+            priors = GrammarPriors.getInstance(new FakeContext());
+        }
+        written.clear();
+    }
+
+    @Test
+    public void expansion_listsEveryPhraseOfTheRule() {
+        Set<String> phrases = GrammarPriors.expandCommandRule(GRAMMAR);
+        assertNotNull(phrases);
+        assertEquals(5, phrases.size());
+        assertTrue(phrases.contains("take photo"));
+        assertTrue(phrases.contains("snap photo"));
+        assertTrue(phrases.contains("photo"));
+        assertTrue(phrases.contains("record video"));
+        assertTrue(phrases.contains("video"));
+    }
+
+    @Test
+    public void expansion_rejectsUnsupportedSyntax() {
+        assertNull(GrammarPriors.expandCommandRule("<single_command> = [please] photo;"));
+        assertNull(GrammarPriors.expandCommandRule("<single_command> = <missing>;"));
+        assertNull(GrammarPriors.expandCommandRule("<other> = photo;"));
+    }
+
+    @Test
+    public void shippedGrammar_matchesCommandIntentPhrases() throws IOException {
+        File file = new File("src/main/assets/sync/en-us/commands.gram");
+        if (!file.exists()) file = new File("app/src/main/assets/sync/en-us/commands.gram");
+        assumeTrue(file.exists());
+        String grammar = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertEquals(CommandIntent.phraseTable().keySet(), GrammarPriors.expandCommandRule(grammar));
+    }
+
+    @Test
+    public void nothingCounted_leavesGrammarUnchanged() {
+        assertSame(GRAMMAR, priors.weightedGrammar("fresh", GRAMMAR));
+    }
+
+    @Test
+    public void weights_comeFromTheGrammarsOwnPhrases() {
+        priors.recordAccepted("weights", "take photo");
+        String weighted = priors.weightedGrammar("weights", GRAMMAR);
+
+        // Most used first, every phrase of the grammar and nothing from elsewhere
+        assertTrue(weighted, weighted.contains("<single_command> =\n    /0.2727/ take photo |"));
+        assertTrue(weighted.contains("/0.1818/ record video"));
+        assertFalse(weighted.contains("send message"));
+        assertTrue(weighted.contains("public <command> = <single_command> (<chain_word> <single_command>)*;"));
+    }
+
+    @Test
+    public void unexpandableRule_leavesGrammarUnweighted() {
+        String grammar = "<single_command> = [please] photo;";
+        priors.recordAccepted("unexpandable", "photo");
+        assertSame(grammar, priors.weightedGrammar("unexpandable", grammar));
+    }
+
+    @Test
+    public void acceptance_writesOnlyChangedKeys() {
+        priors.recordAccepted("writes", "photo");
+        priors.recordAccepted("writes", "video");
+        written.clear();
+
+        priors.recordAccepted("writes", "photo and send text");
+        assertEquals(2, written.size());
+        assertTrue(written.contains("writes|photo"));
+        assertTrue(written.contains("writes|send text"));
+    }
+
+    @Test
+    public void decay_rewritesEveryKey() {
+        priors.recordAccepted("decay", "video");
+        for (int i = 0; i < 99; i++) {
+            priors.recordAccepted("decay", "photo");
+        }
+        written.clear();
+
+        priors.recordAccepted("decay", "photo"); // Total passes the history limit
+        assertTrue(written.contains("decay|video"));
+        assertEquals(50f, stored.get("decay|photo"), 1e-3f);
+        assertEquals(0.5f, stored.get("decay|video"), 1e-3f);
+    }
+
+    @Test
+    public void reweight_isDueAfterEnoughAcceptances() {
+        priors.weightedGrammar("due", GRAMMAR);
+        for (int i = 0; i < 4; i++) {
+            priors.recordAccepted("due", "photo");
+        }
+        assertFalse(priors.isReweightDue("due"));
+        priors.recordAccepted("due", "photo");
+        assertTrue(priors.isReweightDue("due"));
+    }
+
+    @Test
+    public void postponedReweight_waitsForTheNextBatch() {
+        for (int i = 0; i < 5; i++) {
+            priors.recordAccepted("postponed", "photo");
+        }
+        priors.postponeReweight("postponed");
+        assertFalse(priors.isReweightDue("postponed"));
+        for (int i = 0; i < 5; i++) {
+            priors.recordAccepted("postponed", "video");
+        }
+        assertTrue(priors.isReweightDue("postponed"));
+    }
+
+    /**
+     * Context whose preferences live in the maps above
+     */
+    private static final class FakeContext extends ContextWrapper {
+        FakeContext() {
+            super(null);
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(String name, int mode) {
+            return (SharedPreferences) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{SharedPreferences.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getFloat":
+                                Float value = stored.get((String) args[0]);
+                                return value != null ? value : args[1];
+                            case "edit":
+                                return editor();
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private static SharedPreferences.Editor editor() {
+            return (SharedPreferences.Editor) Proxy.newProxyInstance(GrammarPriorsTest.class.getClassLoader(),
+                    new Class<?>[]{SharedPreferences.Editor.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "putFloat":
+                                stored.put((String) args[0], (Float) args[1]);
+                                written.add((String) args[0]);
+                                return proxy;
+                            case "apply":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ListeningModePolicy: duty cycle chosen for battery, charging and activity.
+ */
+public class ListeningModePolicyTest {
+
+    private static final long MINUTE_MS = 60_000;
+
+    @Test
+    public void charging_listensContinuouslyEvenWhenLowAndIdle() {
+        assertEquals(ListeningModePolicy.Mode.CONTINUOUS,
+                ListeningModePolicy.choose(5, true, 60 * MINUTE_MS, true));
+    }
+
+    @Test
+    public void lowBattery_spotsWakePhraseEvenWhenActive() {
+        assertEquals(ListeningModePolicy.Mode.WAKE_PHRASE,
+                ListeningModePolicy.choose(20, false, 0, true));
+    }
+
+    @Test
+    public void recentActivityOnHighBattery_listensContinuously() {
+        assertEquals(ListeningModePolicy.Mode.CONTINUOUS,
+                ListeningModePolicy.choose(80, false, MINUTE_MS, true));
+    }
+
+    @Test
+    public void recentActivityOnMediumBattery_usesWindows() {
+        assertEquals(ListeningModePolicy.Mode.WINDOWED,
+                ListeningModePolicy.choose(40, false, MINUTE_MS, true));
+    }
+
+    @Test
+    public void longIdle_spotsWakePhrase() {
+        assertEquals(ListeningModePolicy.Mode.WAKE_PHRASE,
+                ListeningModePolicy.choose(80, false, 16 * MINUTE_MS, true));
+    }
+
+    @Test
+    public void betweenActiveAndIdle_usesWindows() {
+        assertEquals(ListeningModePolicy.Mode.WINDOWED,
+                ListeningModePolicy.choose(80, false, 5 * MINUTE_MS, true));
+    }
+
+    @Test
+    public void withoutWakePhrase_fallsBackToWindows() {
+        assertEquals(ListeningModePolicy.Mode.WINDOWED,
+                ListeningModePolicy.choose(10, false, 0, false));
+        assertEquals(ListeningModePolicy.Mode.WINDOWED,
+                ListeningModePolicy.choose(80, false, 60 * MINUTE_MS, false));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * PhoneticMatcher: bounded edit distance and nearest-phrase matching.
+ */
+public class PhoneticMatcherTest {
+
+    /**
+     * Pronunciations for the one-word phrases only; other phrases are left out of the index
+     */
+    private static PhoneticMatcher matcher() {
+        final Map<String, String> dictionary = new HashMap<>();
+        dictionary.put("photo", "F OW T OW");
+        dictionary.put("picture", "P IH K CH ER");
+        dictionary.put("video", "V IH D IY OW");
+        dictionary.put("message", "M EH S AH JH");
+        dictionary.put("text", "T EH K S T");
+        return PhoneticMatcher.build(dictionary::get);
+    }
+
+    private static String[] phones(String text) {
+        return text.split(" ");
+    }
+
+    @Test
+    public void editDistance_countsEdits() {
+        assertEquals(0, PhoneticMatcher.boundedEditDistance(phones("A B C"), phones("A B C"), 3));
+        assertEquals(1, PhoneticMatcher.boundedEditDistance(phones("A B C"), phones("A X C"), 3));
+        assertEquals(2, PhoneticMatcher.boundedEditDistance(phones("A B C D"), phones("B C"), 3));
+    }
+
+    @Test
+    public void editDistance_stopsAtBound() {
+        assertEquals(2, PhoneticMatcher.boundedEditDistance(phones("A B C D E"), phones("A"), 1));
+        assertEquals(2, PhoneticMatcher.boundedEditDistance(phones("A B C"), phones("X Y Z"), 1));
+    }
+
+    @Test
+    public void index_skipsPhrasesWithUnknownWords() {
+        assertEquals(5, matcher().size());
+    }
+
+    @Test
+    public void exactPhones_matchTheirPhrase() {
+        PhoneticMatcher.Match match = matcher().match(phones("F OW T OW"));
+        assertNotNull(match);
+        assertEquals(CommandIntent.PHOTO, match.intent);
+        assertEquals("photo", match.phrase);
+        assertEquals(0f, match.distance, 0f);
+    }
+
+    @Test
+    public void nearMiss_matchesWithinDistance() {
+        PhoneticMatcher.Match match = matcher().match(phones("V IH D IH OW"));
+        assertNotNull(match);
+        assertEquals(CommandIntent.VIDEO, match.intent);
+        assertEquals(0.2f, match.distance, 1e-6f);
+    }
+
+    @Test
+    public void farOrEmpty_isRejected() {
+        assertNull(matcher().match(phones("S IY Z AH")));
+        assertNull(matcher().match(new String[0]));
+    }
+
+    @Test
+    public void speechPhones_dropSilenceAndFillers() {
+        assertArrayEquals(phones("F OW T OW"), PhoneticMatcher.speechPhones("SIL f OW +NSN+ T OW SIL"));
+        assertEquals(0, PhoneticMatcher.speechPhones(null).length);
+    }
+}
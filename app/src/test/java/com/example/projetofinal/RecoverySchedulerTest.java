@@ -0,0 +1,120 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * RecoveryScheduler: strategy escalation, backoff growth, health budget and
+ * when a failure episode counts as recovered.
+ */
+public class RecoverySchedulerTest {
+
+    /**
+     * Always draws the top of the jitter range, so delays grow predictably
+     */
+    private static final class MaxRandom extends Random {
+        @Override
+        public double nextDouble() {
+            return 0.999;
+        }
+    }
+
+    @Test
+    public void repeatedDecoderErrors_escalateToRebuildDespiteRestarts() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        long now = 0;
+
+        RecoveryScheduler.Plan first = scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, now);
+        assertEquals(RecoveryScheduler.Strategy.SEARCH_RESET, first.strategy);
+
+        // The restart "succeeds" but fails again right away
+        scheduler.onListening(now += 300);
+        RecoveryScheduler.Plan second = scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, now += 100);
+        assertEquals(RecoveryScheduler.Strategy.FULL_REBUILD, second.strategy);
+        assertTrue(scheduler.isRecovering());
+    }
+
+    @Test
+    public void backoffGrows_whileRestartsKeepFailing() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        long now = 0;
+        long previousDelay = 0;
+        for (int i = 0; i < 4; i++) {
+            RecoveryScheduler.Plan plan = scheduler.onFailure(RecoveryScheduler.FailureClass.TIMEOUT, now);
+            assertFalse(plan.degraded);
+            assertTrue("delay " + plan.delayMs + " after " + previousDelay, plan.delayMs > previousDelay);
+            previousDelay = plan.delayMs;
+            scheduler.onListening(now += plan.delayMs);
+            now += 500; // Fails again well before the stable interval
+        }
+    }
+
+    @Test
+    public void result_closesEpisodeAndResetsEscalation() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, 0);
+        scheduler.onListening(300);
+        scheduler.onRecognized(2000);
+
+        assertFalse(scheduler.isRecovering());
+        assertEquals(1, scheduler.recoveries());
+        RecoveryScheduler.Plan next = scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, 3000);
+        assertEquals(RecoveryScheduler.Strategy.SEARCH_RESET, next.strategy);
+    }
+
+    @Test
+    public void stableListening_closesEpisodeAtNextFailure() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR, 0);
+        scheduler.onListening(300);
+
+        RecoveryScheduler.Plan next = scheduler.onFailure(RecoveryScheduler.FailureClass.DECODER_ERROR,
+                300 + RecoveryScheduler.STABLE_LISTENING_MS);
+        assertEquals(1, scheduler.recoveries());
+        assertEquals(RecoveryScheduler.Strategy.SEARCH_RESET, next.strategy);
+    }
+
+    @Test
+    public void listeningAlone_doesNotCloseEpisode() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        scheduler.onFailure(RecoveryScheduler.FailureClass.TIMEOUT, 0);
+        scheduler.onListening(100);
+        assertTrue(scheduler.isRecovering());
+        assertEquals(0, scheduler.recoveries());
+    }
+
+    @Test
+    public void failuresOverBudget_degradeToSlowRebuilds() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        RecoveryScheduler.Plan plan = null;
+        for (int i = 0; i < 7; i++) {
+            plan = scheduler.onFailure(RecoveryScheduler.FailureClass.TIMEOUT, i * 1000L);
+        }
+        assertTrue(plan.degraded);
+        assertEquals(RecoveryScheduler.Strategy.FULL_REBUILD, plan.strategy);
+    }
+
+    @Test
+    public void busyMicrophone_isNeverRebuilt() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        RecoveryScheduler.Plan plan = null;
+        for (int i = 0; i < 7; i++) {
+            plan = scheduler.onFailure(RecoveryScheduler.FailureClass.AUDIO_DEVICE_BUSY, i * 1000L);
+        }
+        assertTrue(plan.degraded);
+        assertEquals(RecoveryScheduler.Strategy.SOFT_RESTART, plan.strategy);
+    }
+
+    @Test
+    public void oldFailuresLeaveTheWindow() {
+        RecoveryScheduler scheduler = new RecoveryScheduler(new MaxRandom());
+        for (int i = 0; i < 6; i++) {
+            scheduler.onFailure(RecoveryScheduler.FailureClass.TIMEOUT, i * 1000L);
+        }
+        RecoveryScheduler.Plan later = scheduler.onFailure(RecoveryScheduler.FailureClass.TIMEOUT, 120_000);
+        assertFalse(later.degraded);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * RecognizerFactory utterance audio: the silence trimmed before learning.
+ */
+public class UtteranceAudioTest {
+
+    // 16 kHz, as the acoustic models
+    private static final int SAMPLES_PER_MS = 16;
+
+    @Test
+    public void leadingSilence_isDroppedButTheLeadIsKept() {
+        short[] audio = new short[3000 * SAMPLES_PER_MS];
+        audio[1500 * SAMPLES_PER_MS] = 7; // First sample of the kept lead
+
+        short[] trimmed = RecognizerFactory.trimToSpeech(audio, 2000);
+        assertEquals(1500 * SAMPLES_PER_MS, trimmed.length);
+        assertEquals(7, trimmed[0]);
+    }
+
+    @Test
+    public void speechInsideTheLead_keepsEverything() {
+        short[] audio = new short[1000 * SAMPLES_PER_MS];
+        assertSame(audio, RecognizerFactory.trimToSpeech(audio, 400));
+        assertSame(audio, RecognizerFactory.trimToSpeech(audio, 0));
+    }
+
+    @Test
+    public void offsetPastTheBuffer_keepsEverything() {
+        short[] audio = new short[100 * SAMPLES_PER_MS];
+        assertSame(audio, RecognizerFactory.trimToSpeech(audio, 5000));
+        assertNull(RecognizerFactory.trimToSpeech(null, 2000));
+    }
+
+    @Test
+    public void speechOffset_isZeroUntilBothTimesAreKnown() {
+        assertEquals(750, RecognizerFactory.speechOffsetMs(10_000, 10_750));
+        assertEquals(0, RecognizerFactory.speechOffsetMs(10_000, -1));
+        assertEquals(0, RecognizerFactory.speechOffsetMs(-1, 10_750));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.projetofinal;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * VLog: pattern formatting and the Throwable overloads, as seen in the ring.
+ */
+public class VLogTest {
+
+    @Test
+    public void trailingThrowable_isAttachedNotFormatted() throws IOException {
+        VLog.w("VLogTest", "Grammar not loaded for '{}'.", "en-us", new IOException("boom"));
+        assertTrue(lastRecord().endsWith("W/VLogTest: Grammar not loaded for 'en-us'. [java.io.IOException: boom]"));
+
+        VLog.e("VLogTest", "Recognition error: {}", "busy", new IllegalStateException("busy"));
+        assertTrue(lastRecord().endsWith("E/VLogTest: Recognition error: busy [java.lang.IllegalStateException: busy]"));
+    }
+
+    @Test
+    public void twoArguments_areStillBothFormatted() throws IOException {
+        VLog.w("VLogTest", "{} then {}", "photo", "video");
+        assertTrue(lastRecord().endsWith("W/VLogTest: photo then video"));
+    }
+
+    @Test
+    public void supplier_isFormattedWhenEnabled() throws IOException {
+        VLog.d("VLogTest", () -> "Updated " + 3 + " frames");
+        assertTrue(lastRecord().endsWith("D/VLogTest: Updated 3 frames"));
+    }
+
+    private static String lastRecord() throws IOException {
+        File file = File.createTempFile("vlog", ".txt");
+        try {
+            VLog.dump(file);
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            return lines.get(lines.size() - 1);
+        } finally {
+            file.delete();
+        }
+    }
+}